@@ -1,9 +1,29 @@
-import React, { useState, useEffect } from 'react';
+import React, { useState, useEffect, useRef } from 'react';
 import axios from 'axios';
 import { useNavigate, Link, useLocation } from 'react-router-dom';
 import { BarChart, Bar, XAxis, YAxis, CartesianGrid, Tooltip, Legend } from 'recharts';
 import './App.css';
 
+const EXCEPTION_PAGE = 20;
+
+// Server order for each list: worst first (see ProductRepository.findLowStock and friends)
+const EXCEPTION_ORDER = {
+  NEGATIVE: (a, b) => a.currentStock - b.currentStock || a.productId - b.productId,
+  ZERO: (a, b) => a.sku.localeCompare(b.sku),
+  LOW: (a, b) => (a.currentStock - a.reorderPoint) - (b.currentStock - b.reorderPoint) || a.productId - b.productId,
+};
+
+// Moves a product to the list named by the event's "to" state; events carry the new state, so replays are no-ops
+const applyExceptionChange = (lists, change) => {
+  const next = {};
+  Object.keys(lists).forEach((type) => { next[type] = lists[type].filter((item) => item.productId !== change.productId); });
+  if (change.to) {
+    const item = { productId: change.productId, sku: change.sku, name: change.name, type: change.to, currentStock: change.currentStock, reorderPoint: change.reorderPoint };
+    next[change.to] = [...next[change.to], item].sort(EXCEPTION_ORDER[change.to]).slice(0, EXCEPTION_PAGE);
+  }
+  return next;
+};
+
 const InventoryDashboard = () => {
   const [token, setToken] = useState(localStorage.getItem('token') || '');
   const [permissions, setPermissions] = useState([]);
@@ -16,6 +36,9 @@ const InventoryDashboard = () => {
   const [transactions, setTransactions] = useState([]);
   const [predictions, setPredictions] = useState([]);
   const [purchaseOrders, setPurchaseOrders] = useState([]);
+  const [stockExceptions, setStockExceptions] = useState({ NEGATIVE: [], ZERO: [], LOW: [] });
+  const [exceptionCounts, setExceptionCounts] = useState({ NEGATIVE: 0, ZERO: 0, LOW: 0 });
+  const exceptionCursor = useRef(null);
   const navigate = useNavigate();
   const location = useLocation();
 
@@ -28,6 +51,14 @@ const InventoryDashboard = () => {
     // eslint-disable-next-line react-hooks/exhaustive-deps
   }, [token]);
 
+  // Exception lists follow STOCK_EXCEPTION_CHANGED events instead of being recomputed from the full catalog
+  useEffect(() => {
+    if (!token || !permissions.includes('MANAGE_INVENTORY')) return undefined;
+    const timer = setInterval(pollExceptionChanges, 5000);
+    return () => clearInterval(timer);
+    // eslint-disable-next-line react-hooks/exhaustive-deps
+  }, [token, permissions]);
+
   const fetchProfileAndProducts = async () => {
     try {
       const profileRes = await axios.get('http://localhost:8080/api/user/profile', {
@@ -40,6 +71,7 @@ const InventoryDashboard = () => {
         fetchProducts();
         fetchTransactions();
         fetchPredictions();
+        fetchStockExceptions();
         if (userPerms.includes('MANAGE_INVENTORY')) {
           fetchPurchaseOrders();
         }
@@ -49,13 +81,80 @@ const InventoryDashboard = () => {
     }
   };
 
+  const fetchExceptionCounts = async () => {
+    const res = await axios.get('http://localhost:8080/api/inventory/exceptions/summary', { headers: { Authorization: `Bearer ${token}` } });
+    setExceptionCounts({ NEGATIVE: res.data.NEGATIVE, ZERO: res.data.ZERO, LOW: res.data.LOW });
+    return res.data.eventCursor;
+  };
+
+  const fetchStockExceptions = async () => {
+    try {
+      // Cursor first, so nothing that changes while the lists load is missed
+      const cursor = await fetchExceptionCounts();
+      const lists = await Promise.all(['NEGATIVE', 'ZERO', 'LOW'].map((type) =>
+        axios.get(`http://localhost:8080/api/inventory/exceptions?type=${type}&size=${EXCEPTION_PAGE}`, { headers: { Authorization: `Bearer ${token}` } })));
+      setStockExceptions({ NEGATIVE: lists[0].data.content, ZERO: lists[1].data.content, LOW: lists[2].data.content });
+      exceptionCursor.current = cursor;
+    } catch (err) { console.error('Failed to fetch stock exceptions'); }
+  };
+
+  const pollExceptionChanges = async () => {
+    if (exceptionCursor.current === null) return;
+    try {
+      const res = await axios.get(`http://localhost:8080/api/events?after=${exceptionCursor.current}&type=STOCK_EXCEPTION_CHANGED`, { headers: { Authorization: `Bearer ${token}` } });
+      if (res.data.gap) {
+        // Events after our cursor have been purged; start over from a fresh snapshot
+        exceptionCursor.current = null;
+        await fetchStockExceptions();
+        return;
+      }
+      exceptionCursor.current = res.data.nextAfter;
+      if (res.data.events.length === 0) return;
+      setStockExceptions((current) => res.data.events.reduce((lists, e) => applyExceptionChange(lists, e.payload), current));
+      await fetchExceptionCounts();
+    } catch (err) { console.error('Failed to poll stock exception changes'); }
+  };
+
   const fetchPurchaseOrders = async () => {
     try {
       const res = await axios.get('http://localhost:8080/api/inventory/purchase-orders', { headers: { Authorization: `Bearer ${token}` } });
-      setPurchaseOrders(res.data);
+      setPurchaseOrders(res.data.content);
     } catch (err) { console.error('Failed to fetch purchase orders'); }
   };
 
+  const handleApprovePO = async (id) => {
+    try {
+      await axios.post(`http://localhost:8080/api/inventory/purchase-orders/${id}/approve`, {}, { headers: { Authorization: `Bearer ${token}` } });
+      fetchPurchaseOrders();
+    } catch (err) {
+      setError(err.response?.data || 'Failed to approve Purchase Order');
+    }
+  };
+
+  const handleReceivePO = async (po) => {
+    const outstanding = po.quantityOrdered - po.quantityReceived;
+    const qtyStr = window.prompt(`How many units of ${po.productName} arrived?`, String(outstanding));
+    if (!qtyStr) return;
+
+    const qty = parseInt(qtyStr);
+    if (isNaN(qty) || qty <= 0 || qty > outstanding) {
+      alert(`Please enter a number between 1 and ${outstanding}.`); return;
+    }
+
+    try {
+      await axios.post('http://localhost:8080/api/inventory/purchase-orders/receive', { lines: [{ purchaseOrderId: po.id, quantity: qty }] }, { headers: { Authorization: `Bearer ${token}` } });
+      setSuccess(`Received ${qty} units of ${po.productName}`);
+      setError('');
+      fetchPurchaseOrders();
+      fetchProducts();
+      fetchTransactions();
+      setTimeout(() => setSuccess(''), 3000);
+    } catch (err) {
+      setError(err.response?.data || 'Failed to receive Purchase Order');
+      setSuccess('');
+    }
+  };
+
   const fetchPredictions = async () => {
     try {
       const res = await axios.get('http://localhost:8000/api/predict/stockout');
@@ -253,6 +352,43 @@ const InventoryDashboard = () => {
             </div>
           )}
 
+          {(permissions.includes('VIEW_INVENTORY') || permissions.includes('MANAGE_INVENTORY') || permissions.includes('PROCESS_SALE')) && (exceptionCounts.NEGATIVE + exceptionCounts.ZERO + exceptionCounts.LOW) > 0 && (
+            <div className="card" style={{ marginTop: '40px', borderTop: '4px solid #ef4444' }}>
+              <h3 style={{ fontSize: '18px', marginBottom: '8px' }}>🚨 Stock Exceptions</h3>
+              <p style={{ fontSize: '13px', color: '#64748b', marginBottom: '24px' }}>
+                {exceptionCounts.NEGATIVE} negative · {exceptionCounts.ZERO} out of stock · {exceptionCounts.LOW} at or below reorder point
+              </p>
+              <div style={{ overflowX: 'auto' }}>
+                <table className="table">
+                  <thead>
+                    <tr>
+                      <th>Status</th>
+                      <th>SKU</th>
+                      <th>Name</th>
+                      <th>Current Stock</th>
+                      <th>Reorder Point</th>
+                    </tr>
+                  </thead>
+                  <tbody>
+                    {['NEGATIVE', 'ZERO', 'LOW'].flatMap((type) => stockExceptions[type]).map((item) => (
+                      <tr key={item.productId}>
+                        <td>
+                          <span style={{ backgroundColor: item.type === 'LOW' ? '#fffbeb' : '#fef2f2', color: item.type === 'LOW' ? '#d97706' : '#ef4444', padding: '4px 10px', borderRadius: '12px', fontSize: '11px', fontWeight: 'bold' }}>
+                            {item.type === 'NEGATIVE' ? 'Negative' : item.type === 'ZERO' ? 'Out of Stock' : 'Low Stock'}
+                          </span>
+                        </td>
+                        <td style={{ color: '#64748b', fontWeight: '500' }}>{item.sku}</td>
+                        <td><strong style={{ color: '#0f172a' }}>{item.name}</strong></td>
+                        <td style={{ fontWeight: '800', fontSize: '16px', color: '#ef4444' }}>{item.currentStock}</td>
+                        <td>{item.reorderPoint}</td>
+                      </tr>
+                    ))}
+                  </tbody>
+                </table>
+              </div>
+            </div>
+          )}
+
           {(permissions.includes('MANAGE_INVENTORY') || permissions.includes('VIEW_INVENTORY')) && predictions.length > 0 && (
             <div style={{ marginTop: '40px' }}>
               <h3 style={{ fontSize: '20px', color: '#1e293b', display: 'flex', alignItems: 'center', gap: '8px', marginBottom: '20px' }}>
@@ -318,20 +454,29 @@ const InventoryDashboard = () => {
                       <th>Quantity Ordered</th>
                       <th>Requested By</th>
                       <th>Status</th>
+                      <th>Action</th>
                     </tr>
                   </thead>
                   <tbody>
                     {purchaseOrders.map((po) => (
                       <tr key={po.id}>
                         <td style={{ color: '#64748b' }}>{new Date(po.orderDate).toLocaleString()}</td>
-                        <td><strong style={{ color: '#0f172a' }}>{po.product.name}</strong> <br/><span style={{ fontSize: '12px', color: '#94a3b8'}}>{po.product.sku}</span></td>
-                        <td style={{ fontWeight: '700', fontSize: '16px' }}>{po.quantityOrdered} units</td>
-                        <td>{po.generatedBy.username}</td>
+                        <td><strong style={{ color: '#0f172a' }}>{po.productName}</strong> <br/><span style={{ fontSize: '12px', color: '#94a3b8'}}>{po.sku}</span></td>
+                        <td style={{ fontWeight: '700', fontSize: '16px' }}>{po.quantityReceived}/{po.quantityOrdered} units</td>
+                        <td>{po.generatedBy}</td>
                         <td>
                           <span style={{ padding: '6px 12px', borderRadius: '20px', fontSize: '11px', fontWeight: 'bold', backgroundColor: '#fffbeb', color: '#d97706' }}>
                             {po.status}
                           </span>
                         </td>
+                        <td>
+                          {po.status === 'PENDING' && (
+                            <button onClick={() => handleApprovePO(po.id)} style={{ padding: '8px 14px', fontSize: '12px' }}>Approve</button>
+                          )}
+                          {(po.status === 'APPROVED' || po.status === 'PARTIALLY_DELIVERED') && (
+                            <button onClick={() => handleReceivePO(po)} style={{ padding: '8px 14px', fontSize: '12px', backgroundColor: '#10b981' }}>Receive</button>
+                          )}
+                        </td>
                       </tr>
                     ))}
                   </tbody>
@@ -11,7 +11,8 @@ const AVAILABLE_PERMISSIONS = [
   { id: 'CREATE_USER_REQUEST', label: 'Request User Creation/Deletion' },
   { id: 'APPROVE_USER_CREATION', label: 'Approve Personnel Requests' },
   { id: 'ASSIGN_PERMISSION', label: 'Assign Roles & Permissions' },
-  { id: 'VIEW_REQUESTS', label: 'View Pending Personnel Requests' }
+  { id: 'VIEW_REQUESTS', label: 'View Pending Personnel Requests' },
+  { id: 'VIEW_SYSTEM_METRICS', label: 'View System Metrics (Throttling, Reservations, Queries, Caches)' }
 ];
 
 const UserManagement = () => {
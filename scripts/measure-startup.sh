@@ -0,0 +1,68 @@
+#!/usr/bin/env bash
+# Compares startup time and first-request latency of the regular JVM launch against the
+# AOT + CDS launch produced by the fast-startup profile.
+#
+# Usage:
+#   ./mvnw -Pfast-startup package       # the CDS training run uses an in-memory H2 database
+#   scripts/measure-startup.sh [runs]    # default 5 runs per mode
+#
+# Both modes start against the configured database. JAVA_OPTS is passed to every launch, e.g. to
+# measure without one (H2 isn't packaged, so pass the driver the way the training run does):
+#   JAVA_OPTS="--module-path=$HOME/.m2/repository/com/h2database/h2/<version>/h2-<version>.jar
+#   --add-modules=com.h2database -Dspring.datasource.url=jdbc:h2:mem:probe;MODE=PostgreSQL
+#   -Dspring.datasource.username=sa -Dspring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+#
+# Startup time is taken from Spring Boot's own "Started SmartStockApplication in X seconds" line.
+# First-request latency is the first POST /api/login after startup, which goes through the
+# security filter chain, JPA and the connection pool.
+set -euo pipefail
+
+RUNS=${1:-5}
+PORT=${PORT:-8080}
+APP_DIR=${APP_DIR:-target/fast-startup}
+JAR=$(basename "$(ls "$APP_DIR"/*.jar | head -n 1)")
+read -ra EXTRA_OPTS <<< "${JAVA_OPTS:-}"
+LOG=$(mktemp)
+trap 'rm -f "$LOG"' EXIT
+
+if [[ ! -f "$APP_DIR/application.jsa" ]]; then
+  echo "No CDS archive in $APP_DIR; build with ./mvnw -Pfast-startup package first" >&2
+  exit 1
+fi
+
+run_once() {
+  local pid started first
+  (cd "$APP_DIR" && exec java "$@" "${EXTRA_OPTS[@]}" -Dserver.port="$PORT" -jar "$JAR") > "$LOG" 2>&1 &
+  pid=$!
+  until grep -q "Started SmartStockApplication" "$LOG"; do
+    if ! kill -0 "$pid" 2> /dev/null; then
+      echo "Application exited during startup:" >&2
+      tail -n 20 "$LOG" >&2
+      exit 1
+    fi
+    sleep 0.05
+  done
+  started=$(grep -o "Started SmartStockApplication in [0-9.]* seconds" "$LOG" | awk '{print $4}')
+  first=$(curl -s -o /dev/null -w '%{time_total}' -X POST -H 'Content-Type: application/json' \
+    -d '{"username":"startup-probe","password":"x"}' "http://localhost:$PORT/api/login")
+  kill "$pid"
+  wait "$pid" 2> /dev/null || true
+  echo "$started $first"
+}
+
+median() {
+  sort -n | awk '{ v[NR] = $1 } END { print (NR % 2) ? v[(NR + 1) / 2] : (v[NR / 2] + v[NR / 2 + 1]) / 2 }'
+}
+
+measure() {
+  local label=$1 results
+  shift
+  results=$(for _ in $(seq "$RUNS"); do run_once "$@"; done)
+  printf '%-12s startup %6.3f s   first request %6.1f ms\n' "$label" \
+    "$(awk '{print $1}' <<< "$results" | median)" \
+    "$(awk '{print $2 * 1000}' <<< "$results" | median)"
+}
+
+echo "Median of $RUNS runs each"
+measure "jvm"
+measure "aot+cds" -XX:SharedArchiveFile=application.jsa -Dspring.aot.enabled=true
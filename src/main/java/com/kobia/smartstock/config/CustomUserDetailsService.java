@@ -1,7 +1,7 @@
 package com.kobia.smartstock.config;
 
 import com.kobia.smartstock.entity.User;
-import com.kobia.smartstock.repository.UserRepository;
+import com.kobia.smartstock.service.LookupCache;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -13,15 +13,16 @@ import java.util.stream.Collectors;
 @Service
 public class CustomUserDetailsService implements UserDetailsService {
 
-    private final UserRepository userRepository;
+    private final LookupCache lookupCache;
 
-    public CustomUserDetailsService(UserRepository userRepository) {
-        this.userRepository = userRepository;
+    public CustomUserDetailsService(LookupCache lookupCache) {
+        this.lookupCache = lookupCache;
     }
 
+    // Runs at login and for tokens issued before the permission-mask claim (JwtAuthenticationFilter)
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        User user = userRepository.findByUsername(username)
+        User user = lookupCache.user(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
 
         return new org.springframework.security.core.userdetails.User(
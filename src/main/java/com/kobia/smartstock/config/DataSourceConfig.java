@@ -0,0 +1,76 @@
+package com.kobia.smartstock.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.autoconfigure.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import javax.sql.DataSource;
+
+@Configuration
+@EnableScheduling
+@EnableConfigurationProperties(QueryProfilerProperties.class)
+public class DataSourceConfig {
+
+    // Reports lag in ms on a streaming standby, 0 when the standby has replayed everything it received.
+    // NULL (unavailable) when the server is not a standby, or when its WAL receiver isn't streaming: a
+    // standby cut off from the primary has replayed everything it received too, and would otherwise look fresh.
+    private static final String POSTGRES_LAG_QUERY =
+            "SELECT CASE WHEN NOT pg_is_in_recovery() THEN NULL "
+                    + "WHEN NOT EXISTS (SELECT 1 FROM pg_stat_wal_receiver WHERE status = 'streaming') THEN NULL "
+                    + "WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 "
+                    + "ELSE EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000 END";
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    // Hikari pool settings for the replica, e.g. smartstock.datasource.replica.jdbc-url / username / password
+    @Bean
+    @ConditionalOnProperty("smartstock.datasource.replica.jdbc-url")
+    @ConfigurationProperties("smartstock.datasource.replica")
+    public HikariDataSource replicaDataSource() {
+        HikariDataSource replica = new HikariDataSource();
+        replica.setReadOnly(true);
+        replica.setPoolName("replica");
+        // Don't block startup if the replica is down; the health monitor keeps reads on the primary
+        replica.setInitializationFailTimeout(-1);
+        return replica;
+    }
+
+    @Bean
+    @ConditionalOnProperty("smartstock.datasource.replica.jdbc-url")
+    public ReplicaHealthMonitor replicaHealthMonitor(@Qualifier("replicaDataSource") DataSource replicaDataSource,
+                                                     @Value("${smartstock.datasource.replica.lag-query:" + POSTGRES_LAG_QUERY + "}") String lagQuery) {
+        return new ReplicaHealthMonitor(replicaDataSource, lagQuery);
+    }
+
+    // Outermost layer is the query profiler, so statements are timed whichever pool ends up serving them
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                 @Qualifier("replicaDataSource") ObjectProvider<DataSource> replicaDataSource,
+                                 ObjectProvider<ReplicaHealthMonitor> replicaHealthMonitor,
+                                 QueryProfiler queryProfiler) {
+        DataSource replica = replicaDataSource.getIfAvailable();
+        ReplicaHealthMonitor monitor = replicaHealthMonitor.getIfAvailable();
+        if (replica == null || monitor == null) {
+            return queryProfiler.wrap(primaryDataSource);
+        }
+        // Lazy proxy defers the physical connection until the first statement, after the
+        // transaction's read-only flag is known
+        return queryProfiler.wrap(
+                new LazyConnectionDataSourceProxy(new ReadReplicaRoutingDataSource(primaryDataSource, replica, monitor)));
+    }
+}
@@ -1,5 +1,7 @@
 package com.kobia.smartstock.config;
 
+import com.kobia.smartstock.service.LookupCache;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -21,11 +23,13 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final UserDetailsService userDetailsService;
     private final JwtUtil jwtUtil;
+    private final LookupCache lookupCache;
     private static final Logger logger = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
 
-    public JwtAuthenticationFilter(JwtUtil jwtUtil, UserDetailsService userDetailsService) {
+    public JwtAuthenticationFilter(JwtUtil jwtUtil, UserDetailsService userDetailsService, LookupCache lookupCache) {
         this.jwtUtil = jwtUtil;
         this.userDetailsService = userDetailsService;
+        this.lookupCache = lookupCache;
     }
 
     @Override
@@ -39,23 +43,39 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
 
         final String authorizationHeader = request.getHeader("Authorization");
-        String username = null;
         String jwt = null;
+        Claims claims = null;
 
         if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
             jwt = authorizationHeader.substring(7);
             try {
-                username = jwtUtil.extractUsername(jwt);
+                claims = jwtUtil.extractAllClaims(jwt);
             } catch (Exception e) {
                 logger.warn("Invalid JWT token: " + e.getMessage());
             }
         }
 
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
-            if (jwtUtil.isTokenValid(jwt, userDetails)) {
-                UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                        userDetails, null, userDetails.getAuthorities());
+        if (claims != null && claims.getSubject() != null
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
+            UsernamePasswordAuthenticationToken authToken = null;
+            Long permissionMask = JwtUtil.extractPermissionMask(claims);
+            if (permissionMask != null) {
+                // Signed mask claim, trusted only while the user still exists and their token version hasn't
+                // moved on (permission change, approval); the version comes from a short-lived cache
+                Integer tokenVersion = lookupCache.tokenVersion(claims.getSubject()).orElse(null);
+                if (tokenVersion != null && tokenVersion == JwtUtil.extractTokenVersion(claims)) {
+                    PermissionPrincipal principal = new PermissionPrincipal(claims.getSubject(), permissionMask);
+                    authToken = new UsernamePasswordAuthenticationToken(principal, null, principal.authorities());
+                }
+            } else {
+                // Tokens issued before the mask claim still authenticate against the stored permissions
+                UserDetails userDetails = this.userDetailsService.loadUserByUsername(claims.getSubject());
+                if (jwtUtil.isTokenValid(jwt, userDetails)) {
+                    authToken = new UsernamePasswordAuthenticationToken(
+                            userDetails, null, userDetails.getAuthorities());
+                }
+            }
+            if (authToken != null) {
                 authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(authToken);
             }
@@ -14,6 +14,11 @@ import java.util.function.Function;
 @Component
 public class JwtUtil {
 
+    // Permission bitmask (see Permission), so requests can be authorized without loading the user
+    public static final String PERMISSION_CLAIM = "perm";
+    // User.tokenVersion when the token was issued; the mask is only trusted while it still matches
+    public static final String VERSION_CLAIM = "ver";
+
     @Value("${jwt.secret}")
     private String secret;
 
@@ -21,12 +26,13 @@ public class JwtUtil {
         return Keys.hmacShaKeyFor(secret.getBytes());
     }
 
-    public String generateToken(UserDetails userDetails) {
+    public String generateToken(String username, long permissionMask, int tokenVersion) {
         Map<String, Object> claims = new HashMap<>();
-        claims.put("authorities", userDetails.getAuthorities());
+        claims.put(PERMISSION_CLAIM, permissionMask);
+        claims.put(VERSION_CLAIM, tokenVersion);
         return Jwts.builder()
                 .claims(claims)
-                .subject(userDetails.getUsername())
+                .subject(username)
                 .issuedAt(new Date())
                 .expiration(new Date(System.currentTimeMillis() + 1000 * 60 * 60 * 10)) // 10 hrs
                 .signWith(getSigningKey())
@@ -36,9 +42,25 @@ public class JwtUtil {
     public String extractUsername(String token) { return extractClaim(token, Claims::getSubject); }
 
     public <T> T extractClaim(String token, Function<Claims, T> resolver) {
-        final Claims claims = Jwts.parser().verifyWith(getSigningKey()).build()
+        return resolver.apply(extractAllClaims(token));
+    }
+
+    // Throws if the signature is invalid or the token has expired
+    public Claims extractAllClaims(String token) {
+        return Jwts.parser().verifyWith(getSigningKey()).build()
                 .parseSignedClaims(token).getPayload();
-        return resolver.apply(claims);
+    }
+
+    // Null for tokens issued before the permission claim was added
+    public static Long extractPermissionMask(Claims claims) {
+        Number mask = claims.get(PERMISSION_CLAIM, Number.class);
+        return mask != null ? mask.longValue() : null;
+    }
+
+    // Tokens issued before the version claim count as version 0, so any permission change since revokes them
+    public static int extractTokenVersion(Claims claims) {
+        Number version = claims.get(VERSION_CLAIM, Number.class);
+        return version != null ? version.intValue() : 0;
     }
 
     public Boolean isTokenValid(String token, UserDetails userDetails) {
@@ -0,0 +1,77 @@
+package com.kobia.smartstock.config;
+
+import com.kobia.smartstock.entity.Permission;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.authorization.AuthorizationManagerFactory;
+import org.springframework.security.authorization.DefaultAuthorizationManagerFactory;
+import org.springframework.security.core.Authentication;
+
+// Backs hasAuthority/hasAnyAuthority/hasAllAuthorities in both @PreAuthorize and the HTTP rules.
+// Catalog permissions are resolved to a bitmask once, when the rule is built, and checked with a
+// single AND against the caller's PermissionPrincipal. Anything else falls back to the name-based check.
+public class PermissionAuthorizationManagerFactory<T> implements AuthorizationManagerFactory<T> {
+
+    private final DefaultAuthorizationManagerFactory<T> fallback = new DefaultAuthorizationManagerFactory<>();
+
+    @Override
+    public AuthorizationManager<T> hasAuthority(String authority) {
+        return masked(fallback.hasAuthority(authority), false, authority);
+    }
+
+    @Override
+    public AuthorizationManager<T> hasAnyAuthority(String... authorities) {
+        return masked(fallback.hasAnyAuthority(authorities), false, authorities);
+    }
+
+    @Override
+    public AuthorizationManager<T> hasAllAuthorities(String... authorities) {
+        return masked(fallback.hasAllAuthorities(authorities), true, authorities);
+    }
+
+    private AuthorizationManager<T> masked(AuthorizationManager<T> byName, boolean all, String... authorities) {
+        long required = 0;
+        for (String authority : authorities) {
+            Permission permission = Permission.find(authority);
+            if (permission == null) {
+                return byName;
+            }
+            required |= permission.bit();
+        }
+        long mask = required;
+        return (authentication, object) -> {
+            Authentication auth = authentication.get();
+            if (auth != null && auth.isAuthenticated() && auth.getPrincipal() instanceof PermissionPrincipal principal) {
+                return new AuthorizationDecision(all ? principal.hasAll(mask) : principal.hasAny(mask));
+            }
+            return byName.authorize(authentication, object);
+        };
+    }
+
+    @Override
+    public AuthorizationManager<T> permitAll() { return fallback.permitAll(); }
+
+    @Override
+    public AuthorizationManager<T> denyAll() { return fallback.denyAll(); }
+
+    @Override
+    public AuthorizationManager<T> hasRole(String role) { return fallback.hasRole(role); }
+
+    @Override
+    public AuthorizationManager<T> hasAnyRole(String... roles) { return fallback.hasAnyRole(roles); }
+
+    @Override
+    public AuthorizationManager<T> hasAllRoles(String... roles) { return fallback.hasAllRoles(roles); }
+
+    @Override
+    public AuthorizationManager<T> authenticated() { return fallback.authenticated(); }
+
+    @Override
+    public AuthorizationManager<T> fullyAuthenticated() { return fallback.fullyAuthenticated(); }
+
+    @Override
+    public AuthorizationManager<T> rememberMe() { return fallback.rememberMe(); }
+
+    @Override
+    public AuthorizationManager<T> anonymous() { return fallback.anonymous(); }
+}
@@ -0,0 +1,26 @@
+package com.kobia.smartstock.config;
+
+import com.kobia.smartstock.entity.Permission;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.security.Principal;
+import java.util.List;
+
+// Authenticated caller rebuilt from the JWT claims; authority checks test the mask bitwise
+public record PermissionPrincipal(String username, long permissionMask) implements Principal {
+
+    @Override
+    public String getName() { return username; }
+
+    public boolean hasAny(long required) { return (permissionMask & required) != 0; }
+
+    public boolean hasAll(long required) { return (permissionMask & required) == required; }
+
+    // String authorities for anything that still inspects getAuthorities() by name
+    public List<GrantedAuthority> authorities() {
+        return Permission.namesOf(permissionMask).stream()
+                .<GrantedAuthority>map(SimpleGrantedAuthority::new)
+                .toList();
+    }
+}
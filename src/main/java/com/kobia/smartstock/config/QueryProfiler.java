@@ -0,0 +1,281 @@
+package com.kobia.smartstock.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+// SQL profiling, in place of spring.jpa.show-sql. Every statement is counted and timed against the request
+// running it (see QueryProfilingFilter); only slow ones are logged. Slow statements are also ranked per SQL
+// shape over a rolling window of two windowMs halves, and a statement repeated within one request is
+// reported as a likely N+1. Statements outside a request (scheduled jobs, startup) only feed the slow log.
+@Component
+public class QueryProfiler {
+
+    private static final Logger logger = LoggerFactory.getLogger(QueryProfiler.class);
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern PARAMETER_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)");
+    // Tables holding credentials and personal details: their binds are logged as types and lengths only
+    private static final Pattern SENSITIVE_TABLE = Pattern.compile("\\b(?:users|user_requests)\\b", Pattern.CASE_INSENSITIVE);
+    private static final int MAX_TRACKED_SHAPES = 500;
+    private static final int MAX_BIND_LENGTH = 64;
+
+    private static final ThreadLocal<RequestProfile> CURRENT = new ThreadLocal<>();
+
+    private final QueryProfilerProperties properties;
+    private final long slowThresholdNanos;
+    private final Map<String, EndpointStats> endpoints = new ConcurrentHashMap<>();
+    private volatile Map<String, SlowQuery> currentWindow = new ConcurrentHashMap<>();
+    private volatile Map<String, SlowQuery> previousWindow = new ConcurrentHashMap<>();
+
+    public QueryProfiler(QueryProfilerProperties properties) {
+        this.properties = properties;
+        this.slowThresholdNanos = properties.slowThresholdMs() * 1_000_000;
+    }
+
+    public boolean isEnabled() { return properties.enabled(); }
+
+    public DataSource wrap(DataSource dataSource) {
+        return properties.enabled() ? new ProfilingDataSource(dataSource, this) : dataSource;
+    }
+
+    // request is what the slow log shows, e.g. "GET /api/inventory/products/ABC-1"
+    public void beginRequest(String request) {
+        CURRENT.set(new RequestProfile(request));
+    }
+
+    // endpoint is the matched route, e.g. "GET /api/inventory/exceptions"
+    public void endRequest(String endpoint) {
+        RequestProfile profile = CURRENT.get();
+        CURRENT.remove();
+        if (profile == null) {
+            return;
+        }
+        EndpointStats stats = endpoints.computeIfAbsent(endpoint, key -> new EndpointStats());
+        stats.requests.increment();
+        stats.statements.add(profile.statements);
+        stats.sqlNanos.add(profile.nanos);
+        stats.maxStatements.accumulateAndGet(profile.statements, Math::max);
+
+        String repeatedSql = null;
+        int repeats = 0;
+        for (Map.Entry<String, int[]> entry : profile.executions.entrySet()) {
+            if (entry.getValue()[0] > repeats) {
+                repeats = entry.getValue()[0];
+                repeatedSql = entry.getKey();
+            }
+        }
+        if (repeats >= properties.nPlusOneThreshold()) {
+            stats.nPlusOneRequests.increment();
+            stats.lastNPlusOne = new NPlusOne(repeatedSql, repeats);
+            logger.warn("Possible N+1 on " + endpoint + ": " + repeats + " executions of " + repeatedSql);
+        }
+    }
+
+    // Called by ProfilingDataSource after each statement; binds holds the values set on it, bindCount of them in use
+    void record(String sql, boolean plainStatement, long nanos, Object[] binds, int bindCount) {
+        if (sql == null) {
+            return;
+        }
+        String shape = plainStatement ? normalize(sql) : sql;
+        RequestProfile profile = CURRENT.get();
+        if (profile != null) {
+            profile.statements++;
+            profile.nanos += nanos;
+            profile.executions.computeIfAbsent(shape, key -> new int[1])[0]++;
+        }
+        if (nanos < slowThresholdNanos) {
+            return;
+        }
+        String sampledBinds = bindCount > 0 && ThreadLocalRandom.current().nextDouble() < properties.bindSampleRate()
+                ? formatBinds(binds, bindCount, SENSITIVE_TABLE.matcher(sql).find()) : null;
+        String request = profile != null ? profile.request : "(background)";
+        logger.warn("Slow query (" + nanos / 1_000_000 + " ms, " + request + "): " + sql
+                + (sampledBinds != null ? " binds " + sampledBinds : ""));
+
+        Map<String, SlowQuery> window = currentWindow;
+        SlowQuery slow = window.get(shape);
+        if (slow == null && window.size() < MAX_TRACKED_SHAPES) {
+            slow = window.computeIfAbsent(shape, SlowQuery::new);
+        }
+        if (slow != null) {
+            slow.add(nanos, request, sampledBinds);
+        }
+    }
+
+    // Each window half lives for windowMs, so the ranking always covers between one and two windows
+    @Scheduled(fixedDelayString = "${smartstock.query-profiler.window-ms:300000}")
+    public void rotateWindow() {
+        previousWindow = currentWindow;
+        currentWindow = new ConcurrentHashMap<>();
+    }
+
+    public Map<String, Object> snapshot() {
+        List<Map.Entry<String, EndpointStats>> byTime = new ArrayList<>(endpoints.entrySet());
+        byTime.sort(Comparator.comparingLong((Map.Entry<String, EndpointStats> e) -> e.getValue().sqlNanos.sum()).reversed());
+        Map<String, Object> endpointStats = new LinkedHashMap<>();
+        for (Map.Entry<String, EndpointStats> entry : byTime) {
+            endpointStats.put(entry.getKey(), entry.getValue().snapshot());
+        }
+
+        Map<String, SlowQuery> merged = new HashMap<>();
+        for (Map<String, SlowQuery> window : List.of(previousWindow, currentWindow)) {
+            window.forEach((shape, slow) -> merged.merge(shape, slow.copy(), SlowQuery::mergeFrom));
+        }
+        List<Map<String, Object>> slowQueries = merged.values().stream()
+                .sorted(Comparator.comparingLong(SlowQuery::maxNanos).reversed())
+                .limit(properties.topN())
+                .map(SlowQuery::snapshot)
+                .toList();
+
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("enabled", properties.enabled());
+        snapshot.put("slowThresholdMs", properties.slowThresholdMs());
+        snapshot.put("nPlusOneThreshold", properties.nPlusOneThreshold());
+        snapshot.put("windowMs", properties.windowMs());
+        snapshot.put("slowQueries", slowQueries);
+        snapshot.put("endpoints", endpointStats);
+        return snapshot;
+    }
+
+    // Literals in plain statements become "?", so the same query with different values counts as one shape
+    static String normalize(String sql) {
+        String shape = STRING_LITERAL.matcher(sql).replaceAll("?");
+        shape = NUMBER_LITERAL.matcher(shape).replaceAll("?");
+        return PARAMETER_LIST.matcher(shape).replaceAll("(?...)");
+    }
+
+    // redact logs each value as its type and length, e.g. "String(12)"
+    private static String formatBinds(Object[] binds, int bindCount, boolean redact) {
+        StringBuilder formatted = new StringBuilder("[");
+        for (int i = 0; i < bindCount; i++) {
+            if (i > 0) {
+                formatted.append(", ");
+            }
+            formatted.append(i + 1).append('=');
+            if (binds[i] == null) {
+                formatted.append("null");
+                continue;
+            }
+            String value = String.valueOf(binds[i]);
+            if (redact) {
+                formatted.append(binds[i].getClass().getSimpleName()).append('(').append(value.length()).append(')');
+            } else {
+                formatted.append(value.length() > MAX_BIND_LENGTH ? value.substring(0, MAX_BIND_LENGTH) + "..." : value);
+            }
+        }
+        return formatted.append(']').toString();
+    }
+
+    // Per-thread, so it needs no synchronization
+    private static final class RequestProfile {
+        private final String request;
+        private final Map<String, int[]> executions = new HashMap<>();
+        private int statements;
+        private long nanos;
+
+        RequestProfile(String request) {
+            this.request = request;
+        }
+    }
+
+    private record NPlusOne(String sql, int executions) {
+    }
+
+    private static final class EndpointStats {
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder statements = new LongAdder();
+        private final LongAdder sqlNanos = new LongAdder();
+        private final LongAdder nPlusOneRequests = new LongAdder();
+        private final AtomicLong maxStatements = new AtomicLong();
+        private volatile NPlusOne lastNPlusOne;
+
+        Map<String, Object> snapshot() {
+            long requestCount = requests.sum();
+            long sqlMillis = sqlNanos.sum() / 1_000_000;
+            Map<String, Object> snapshot = new LinkedHashMap<>();
+            snapshot.put("requests", requestCount);
+            snapshot.put("statements", statements.sum());
+            snapshot.put("avgStatements", requestCount == 0 ? 0 : (double) statements.sum() / requestCount);
+            snapshot.put("maxStatements", maxStatements.get());
+            snapshot.put("sqlMillis", sqlMillis);
+            snapshot.put("avgSqlMillis", requestCount == 0 ? 0 : (double) sqlMillis / requestCount);
+            snapshot.put("nPlusOneRequests", nPlusOneRequests.sum());
+            snapshot.put("lastNPlusOne", lastNPlusOne);
+            return snapshot;
+        }
+    }
+
+    // Aggregate for one SQL shape; only slow executions get here, so a lock is cheap enough
+    private static final class SlowQuery {
+        private final String sql;
+        private long executions;
+        private long totalNanos;
+        private long maxNanos;
+        private String slowestRequest;
+        private String sampledBinds;
+
+        SlowQuery(String sql) {
+            this.sql = sql;
+        }
+
+        synchronized void add(long nanos, String request, String binds) {
+            executions++;
+            totalNanos += nanos;
+            if (nanos >= maxNanos) {
+                maxNanos = nanos;
+                slowestRequest = request;
+            }
+            if (binds != null) {
+                sampledBinds = binds;
+            }
+        }
+
+        synchronized SlowQuery copy() {
+            SlowQuery copy = new SlowQuery(sql);
+            copy.mergeFrom(this);
+            return copy;
+        }
+
+        SlowQuery mergeFrom(SlowQuery other) {
+            executions += other.executions;
+            totalNanos += other.totalNanos;
+            if (other.maxNanos >= maxNanos) {
+                maxNanos = other.maxNanos;
+                slowestRequest = other.slowestRequest;
+            }
+            if (other.sampledBinds != null) {
+                sampledBinds = other.sampledBinds;
+            }
+            return this;
+        }
+
+        long maxNanos() { return maxNanos; }
+
+        Map<String, Object> snapshot() {
+            Map<String, Object> snapshot = new LinkedHashMap<>();
+            snapshot.put("sql", sql);
+            snapshot.put("executions", executions);
+            snapshot.put("maxMillis", maxNanos / 1_000_000.0);
+            snapshot.put("avgMillis", executions == 0 ? 0 : totalNanos / 1_000_000.0 / executions);
+            snapshot.put("slowestRequest", slowestRequest);
+            snapshot.put("sampledBinds", sampledBinds);
+            return snapshot;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.kobia.smartstock.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+// smartstock.query-profiler.*: statements slower than slowThresholdMs are logged (with their bind values for
+// a bindSampleRate fraction of them, none by default) and ranked over a rolling window; a statement run
+// nPlusOneThreshold times or more in one request is reported as a likely N+1.
+@ConfigurationProperties("smartstock.query-profiler")
+public record QueryProfilerProperties(@DefaultValue("true") boolean enabled,
+                                      @DefaultValue("200") long slowThresholdMs,
+                                      @DefaultValue("0") double bindSampleRate,
+                                      @DefaultValue("10") int nPlusOneThreshold,
+                                      @DefaultValue("20") int topN,
+                                      @DefaultValue("300000") long windowMs) {
+}
@@ -0,0 +1,38 @@
+package com.kobia.smartstock.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+// Runs ahead of JWT authentication, so the user lookup it does is charged to the request too. Statistics
+// are keyed by the matched route pattern rather than the raw URI, so /products/{sku} is one endpoint.
+public class QueryProfilingFilter extends OncePerRequestFilter {
+
+    private final QueryProfiler profiler;
+
+    public QueryProfilingFilter(QueryProfiler profiler) {
+        this.profiler = profiler;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !profiler.isEnabled() || !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        profiler.beginRequest(request.getMethod() + " " + request.getRequestURI());
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            profiler.endRequest(request.getMethod() + " " + (pattern != null ? pattern : "(unmatched)"));
+        }
+    }
+}
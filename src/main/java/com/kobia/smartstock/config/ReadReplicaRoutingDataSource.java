@@ -0,0 +1,75 @@
+package com.kobia.smartstock.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+
+public class ReadReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public static final String PRIMARY = "primary";
+    public static final String REPLICA = "replica";
+
+    // Staleness tolerated by the current request, set only while a @ReplicaRead endpoint is running
+    private static final ThreadLocal<Long> TOLERATED_STALENESS = new ThreadLocal<>();
+
+    private final DataSource primary;
+    private final ReplicaHealthMonitor replicaHealth;
+
+    public ReadReplicaRoutingDataSource(DataSource primary, DataSource replica, ReplicaHealthMonitor replicaHealth) {
+        this.primary = primary;
+        this.replicaHealth = replicaHealth;
+        setTargetDataSources(Map.of(PRIMARY, primary, REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    public static void allowReplica(long maxStalenessMs) { TOLERATED_STALENESS.set(maxStalenessMs); }
+
+    public static void clear() { TOLERATED_STALENESS.remove(); }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        Long tolerated = TOLERATED_STALENESS.get();
+        if (tolerated == null) {
+            return PRIMARY;
+        }
+        // Never send a read-write transaction to the replica, even from an annotated endpoint
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return PRIMARY;
+        }
+        return replicaHealth.canServe(tolerated) ? REPLICA : PRIMARY;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        DataSource target = determineTargetDataSource();
+        try {
+            return target.getConnection();
+        } catch (SQLException ex) {
+            if (target == primary) {
+                throw ex;
+            }
+            replicaHealth.markUnavailable(ex);
+            return primary.getConnection();
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        DataSource target = determineTargetDataSource();
+        try {
+            return target.getConnection(username, password);
+        } catch (SQLException ex) {
+            if (target == primary) {
+                throw ex;
+            }
+            replicaHealth.markUnavailable(ex);
+            return primary.getConnection(username, password);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.kobia.smartstock.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+public class ReplicaHealthMonitor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaHealthMonitor.class);
+
+    private static final long UNAVAILABLE = Long.MAX_VALUE;
+
+    private final DataSource replica;
+    private final String lagQuery;
+
+    // Last measured replication lag in milliseconds; UNAVAILABLE until the first successful probe
+    private volatile long lagMillis = UNAVAILABLE;
+
+    public ReplicaHealthMonitor(DataSource replica, String lagQuery) {
+        this.replica = replica;
+        this.lagQuery = lagQuery;
+    }
+
+    public boolean canServe(long maxStalenessMs) {
+        return lagMillis <= maxStalenessMs;
+    }
+
+    public long getLagMillis() {
+        return lagMillis;
+    }
+
+    void markUnavailable(SQLException cause) {
+        markUnavailable(cause.getMessage());
+    }
+
+    private void markUnavailable(String reason) {
+        if (lagMillis != UNAVAILABLE) {
+            logger.warn("Read replica unavailable, routing reads to primary: " + reason);
+        }
+        lagMillis = UNAVAILABLE;
+    }
+
+    @Scheduled(fixedDelayString = "${smartstock.datasource.replica.health-check-interval-ms:2000}")
+    public void probe() {
+        try (Connection connection = replica.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(lagQuery)) {
+            if (!rs.next()) {
+                markUnavailable("lag query returned no rows");
+                return;
+            }
+            long measured = rs.getLong(1);
+            // getLong turns SQL NULL into 0, which would read as a fully caught-up replica
+            if (rs.wasNull()) {
+                markUnavailable("replica is not streaming from the primary");
+                return;
+            }
+            if (lagMillis == UNAVAILABLE) {
+                logger.info("Read replica available, lag " + measured + " ms");
+            }
+            lagMillis = Math.max(0, measured);
+        } catch (SQLException ex) {
+            markUnavailable(ex);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.kobia.smartstock.config;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Marks a read-only endpoint that may be served from the read replica.
+// The request falls back to the primary whenever the replica is down or lags by more than maxStalenessMs.
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ReplicaRead {
+    long maxStalenessMs() default 5000;
+}
@@ -0,0 +1,27 @@
+package com.kobia.smartstock.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+@Component
+public class ReplicaReadInterceptor implements HandlerInterceptor {
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (handler instanceof HandlerMethod method) {
+            ReplicaRead replicaRead = method.getMethodAnnotation(ReplicaRead.class);
+            if (replicaRead != null) {
+                ReadReplicaRoutingDataSource.allowReplica(replicaRead.maxStalenessMs());
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        ReadReplicaRoutingDataSource.clear();
+    }
+}
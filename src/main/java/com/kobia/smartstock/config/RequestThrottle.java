@@ -0,0 +1,127 @@
+package com.kobia.smartstock.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Admission control for /api/**: a token bucket per caller and endpoint class, and a global limit on
+// requests in flight. Callers are the authenticated user, or the client address (the terminal) before login.
+@Component
+public class RequestThrottle {
+
+    public enum EndpointClass { LOGIN, SALE, WRITE, READ }
+
+    public enum Decision { ADMITTED, THROTTLED, SHED }
+
+    private final ThrottleProperties properties;
+    private final Map<EndpointClass, ThrottleProperties.Limit> limits = new EnumMap<>(EndpointClass.class);
+    private final Map<EndpointClass, ConcurrentHashMap<String, TokenBucket>> buckets = new EnumMap<>(EndpointClass.class);
+    private final Map<EndpointClass, LongAdder> admitted = new EnumMap<>(EndpointClass.class);
+    private final Map<EndpointClass, LongAdder> throttled = new EnumMap<>(EndpointClass.class);
+    private final LongAdder shed = new LongAdder();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+
+    public RequestThrottle(ThrottleProperties properties) {
+        this.properties = properties;
+        for (EndpointClass endpointClass : EndpointClass.values()) {
+            ThrottleProperties.Limit limit = properties.limits().get(endpointClass.name().toLowerCase(Locale.ROOT));
+            if (limit != null && limit.capacity() > 0 && limit.refillPerSecond() > 0) {
+                limits.put(endpointClass, limit);
+            }
+            buckets.put(endpointClass, new ConcurrentHashMap<>());
+            admitted.put(endpointClass, new LongAdder());
+            throttled.put(endpointClass, new LongAdder());
+        }
+    }
+
+    public boolean isEnabled() { return properties.enabled(); }
+
+    public String terminalHeader() { return properties.terminalHeader(); }
+
+    public static EndpointClass classify(HttpServletRequest request) {
+        String uri = request.getRequestURI();
+        if (uri.equals("/api/login") || uri.equals("/api/register")) {
+            return EndpointClass.LOGIN;
+        }
+        if (uri.equals("/api/inventory/sale")) {
+            return EndpointClass.SALE;
+        }
+        String method = request.getMethod();
+        boolean read = method.equals("GET") || method.equals("HEAD");
+        return read ? EndpointClass.READ : EndpointClass.WRITE;
+    }
+
+    // Rate limit first, so a flooding caller can't take concurrency slots from everyone else.
+    // An ADMITTED decision holds a slot that must be handed back through release().
+    public Decision tryAdmit(EndpointClass endpointClass, String caller, long now) {
+        ThrottleProperties.Limit limit = limits.get(endpointClass);
+        if (limit != null) {
+            TokenBucket bucket = buckets.get(endpointClass)
+                    .computeIfAbsent(caller, key -> new TokenBucket(limit.capacity(), limit.refillPerSecond(), now));
+            if (!bucket.tryAcquire(now)) {
+                throttled.get(endpointClass).increment();
+                return Decision.THROTTLED;
+            }
+        }
+        int current = inFlight.incrementAndGet();
+        if (current > properties.maxConcurrent()) {
+            inFlight.decrementAndGet();
+            shed.increment();
+            return Decision.SHED;
+        }
+        peakInFlight.accumulateAndGet(current, Math::max);
+        admitted.get(endpointClass).increment();
+        return Decision.ADMITTED;
+    }
+
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    // Seconds a throttled caller should wait, for the Retry-After header
+    public long retryAfterSeconds(EndpointClass endpointClass, String caller, long now) {
+        TokenBucket bucket = buckets.get(endpointClass).get(caller);
+        long waitNanos = bucket != null ? bucket.waitNanos(now) : 0;
+        return Math.max(1, (waitNanos + 999_999_999L) / 1_000_000_000L);
+    }
+
+    // Full buckets carry no state worth keeping, so idle callers don't pile up in the maps
+    @Scheduled(fixedDelayString = "${smartstock.throttle.sweep-interval-ms:60000}")
+    public void evictIdleBuckets() {
+        long now = System.nanoTime();
+        for (ConcurrentHashMap<String, TokenBucket> byCaller : buckets.values()) {
+            byCaller.values().removeIf(bucket -> bucket.isFull(now));
+        }
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> classes = new LinkedHashMap<>();
+        for (EndpointClass endpointClass : EndpointClass.values()) {
+            ThrottleProperties.Limit limit = limits.get(endpointClass);
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("capacity", limit != null ? limit.capacity() : null);
+            stats.put("refillPerSecond", limit != null ? limit.refillPerSecond() : null);
+            stats.put("admitted", admitted.get(endpointClass).sum());
+            stats.put("throttled", throttled.get(endpointClass).sum());
+            stats.put("trackedCallers", buckets.get(endpointClass).size());
+            classes.put(endpointClass.name().toLowerCase(Locale.ROOT), stats);
+        }
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("enabled", properties.enabled());
+        snapshot.put("maxConcurrent", properties.maxConcurrent());
+        snapshot.put("inFlight", inFlight.get());
+        snapshot.put("peakInFlight", peakInFlight.get());
+        snapshot.put("shed", shed.sum());
+        snapshot.put("endpointClasses", classes);
+        return snapshot;
+    }
+}
@@ -1,9 +1,14 @@
 package com.kobia.smartstock.config;
 
+import com.kobia.smartstock.service.LookupCache;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authorization.AuthorizationManagerFactory;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
+import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
@@ -12,6 +17,7 @@ import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
@@ -22,14 +28,23 @@ import java.util.List;
 
 @Configuration
 @EnableWebSecurity
+@EnableMethodSecurity
+@EnableConfigurationProperties(ThrottleProperties.class)
 public class SecurityConfig {
 
     private final JwtUtil jwtUtil;
     private final UserDetailsService userDetailsService;
+    private final RequestThrottle requestThrottle;
+    private final QueryProfiler queryProfiler;
+    private final LookupCache lookupCache;
 
-    public SecurityConfig(JwtUtil jwtUtil, UserDetailsService userDetailsService) {
+    public SecurityConfig(JwtUtil jwtUtil, UserDetailsService userDetailsService, RequestThrottle requestThrottle,
+                          QueryProfiler queryProfiler, LookupCache lookupCache) {
         this.jwtUtil = jwtUtil;
         this.userDetailsService = userDetailsService;
+        this.requestThrottle = requestThrottle;
+        this.queryProfiler = queryProfiler;
+        this.lookupCache = lookupCache;
     }
 
     @Bean
@@ -46,11 +61,24 @@ public class SecurityConfig {
                         .requestMatchers("/api/user/**").authenticated()
                         .anyRequest().authenticated()
                 )
-                .addFilterBefore(new JwtAuthenticationFilter(jwtUtil, userDetailsService), UsernamePasswordAuthenticationFilter.class);
+                .addFilterBefore(new JwtAuthenticationFilter(jwtUtil, userDetailsService, lookupCache), UsernamePasswordAuthenticationFilter.class)
+                .addFilterBefore(new QueryProfilingFilter(queryProfiler), JwtAuthenticationFilter.class)
+                .addFilterAfter(new ThrottleFilter(requestThrottle), JwtAuthenticationFilter.class);
 
         return http.build();
     }
 
+    // Bitwise permission checks for the HTTP rules above and for @PreAuthorize respectively
+    @Bean
+    public AuthorizationManagerFactory<RequestAuthorizationContext> requestAuthorizationManagerFactory() {
+        return new PermissionAuthorizationManagerFactory<>();
+    }
+
+    @Bean
+    public AuthorizationManagerFactory<MethodInvocation> methodAuthorizationManagerFactory() {
+        return new PermissionAuthorizationManagerFactory<>();
+    }
+
     @Bean
     public CorsConfigurationSource corsConfigurationSource() {
         CorsConfiguration configuration = new CorsConfiguration();
@@ -0,0 +1,70 @@
+package com.kobia.smartstock.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+// Runs right after JWT authentication, so callers are known by username, and answers 429 before
+// anything reaches a controller or the connection pool
+public class ThrottleFilter extends OncePerRequestFilter {
+
+    private final RequestThrottle throttle;
+
+    public ThrottleFilter(RequestThrottle throttle) {
+        this.throttle = throttle;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !throttle.isEnabled() || !request.getRequestURI().startsWith("/api/")
+                || "OPTIONS".equals(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        RequestThrottle.EndpointClass endpointClass = RequestThrottle.classify(request);
+        String caller = callerKey(request);
+        long now = System.nanoTime();
+
+        switch (throttle.tryAdmit(endpointClass, caller, now)) {
+            case THROTTLED -> reject(response, throttle.retryAfterSeconds(endpointClass, caller, now),
+                    "Too many requests, slow down");
+            case SHED -> reject(response, 1, "Server busy, please retry");
+            case ADMITTED -> {
+                try {
+                    filterChain.doFilter(request, response);
+                } finally {
+                    throttle.release();
+                }
+            }
+        }
+    }
+
+    // Before login the caller is its address. Behind a reverse proxy that is the client address Tomcat took
+    // from X-Forwarded-For (server.forward-headers-strategy=native, trusted proxies only), not the proxy's.
+    private String callerKey(HttpServletRequest request) {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth != null && auth.isAuthenticated()) {
+            return "user:" + auth.getName();
+        }
+        String terminalHeader = throttle.terminalHeader();
+        String terminal = terminalHeader != null && !terminalHeader.isBlank() ? request.getHeader(terminalHeader) : null;
+        return "terminal:" + request.getRemoteAddr() + (terminal != null && !terminal.isBlank() ? "/" + terminal : "");
+    }
+
+    private static void reject(HttpServletResponse response, long retryAfterSeconds, String message) throws IOException {
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader("Retry-After", Long.toString(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write("{\"error\":\"" + message + "\"}");
+    }
+}
@@ -0,0 +1,24 @@
+package com.kobia.smartstock.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.util.Map;
+
+// smartstock.throttle.*: per-caller token buckets for each endpoint class (login, sale, write, read)
+// and a global cap on requests in flight. An endpoint class without limits is not rate limited.
+// terminalHeader optionally names a request header identifying the till, so terminals sharing one
+// address get separate buckets before login; only set it if the proxy in front overwrites that header.
+@ConfigurationProperties("smartstock.throttle")
+public record ThrottleProperties(@DefaultValue("true") boolean enabled,
+                                 @DefaultValue("50") int maxConcurrent,
+                                 Map<String, Limit> limits,
+                                 String terminalHeader) {
+
+    public ThrottleProperties {
+        limits = limits != null ? Map.copyOf(limits) : Map.of();
+    }
+
+    public record Limit(int capacity, double refillPerSecond) {
+    }
+}
@@ -0,0 +1,42 @@
+package com.kobia.smartstock.config;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Lock-free token bucket kept as a single "theoretical arrival time" (GCRA): each request pushes it one
+// refill interval into the future, and the request is refused if that lands more than a full bucket ahead
+// of now. One CAS per request, no timer thread, and a bucket that has refilled completely is just a
+// timestamp in the past.
+final class TokenBucket {
+
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final AtomicLong arrival;
+
+    TokenBucket(int capacity, double refillPerSecond, long now) {
+        this.intervalNanos = Math.max(1, (long) (1_000_000_000L / refillPerSecond));
+        this.burstNanos = capacity * intervalNanos;
+        this.arrival = new AtomicLong(now);
+    }
+
+    boolean tryAcquire(long now) {
+        while (true) {
+            long current = arrival.get();
+            long next = Math.max(current, now) + intervalNanos;
+            if (next - now > burstNanos) {
+                return false;
+            }
+            if (arrival.compareAndSet(current, next)) {
+                return true;
+            }
+        }
+    }
+
+    // Time until the next token is available
+    long waitNanos(long now) {
+        return Math.max(0, arrival.get() + intervalNanos - burstNanos - now);
+    }
+
+    boolean isFull(long now) {
+        return arrival.get() <= now;
+    }
+}
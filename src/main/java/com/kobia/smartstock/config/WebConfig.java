@@ -0,0 +1,22 @@
+package com.kobia.smartstock.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.web.config.EnableSpringDataWebSupport;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+@EnableSpringDataWebSupport(pageSerializationMode = EnableSpringDataWebSupport.PageSerializationMode.VIA_DTO)
+public class WebConfig implements WebMvcConfigurer {
+
+    private final ReplicaReadInterceptor replicaReadInterceptor;
+
+    public WebConfig(ReplicaReadInterceptor replicaReadInterceptor) {
+        this.replicaReadInterceptor = replicaReadInterceptor;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(replicaReadInterceptor).addPathPatterns("/api/**");
+    }
+}
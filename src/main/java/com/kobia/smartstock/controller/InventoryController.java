@@ -1,22 +1,46 @@
 package com.kobia.smartstock.controller;
 
+import com.kobia.smartstock.config.ReplicaRead;
+import com.kobia.smartstock.entity.Location;
 import com.kobia.smartstock.entity.Product;
 import com.kobia.smartstock.entity.StockTransaction;
 import com.kobia.smartstock.entity.User;
 import com.kobia.smartstock.repository.ProductRepository;
 import com.kobia.smartstock.repository.StockTransactionRepository;
-import com.kobia.smartstock.repository.UserRepository;
+import com.kobia.smartstock.service.AuditLogWriter;
+import com.kobia.smartstock.service.GlobalStockAggregator;
+import com.kobia.smartstock.service.LocationService;
+import com.kobia.smartstock.service.LookupCache;
+import com.kobia.smartstock.service.OutboxPublisher;
+import com.kobia.smartstock.service.PurchaseOrderService;
+import com.kobia.smartstock.service.ReorderSimulationService;
+import com.kobia.smartstock.service.StockEscrowService;
+import com.kobia.smartstock.service.StockExceptionType;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import com.kobia.smartstock.dto.EscrowRequest;
+import com.kobia.smartstock.dto.FieldSelection;
+import com.kobia.smartstock.dto.ProductDTO;
+import com.kobia.smartstock.dto.PurchaseOrderDTO;
+import com.kobia.smartstock.dto.PurchaseOrderRequest;
+import com.kobia.smartstock.dto.ReceiveDeliveryRequest;
+import com.kobia.smartstock.dto.ReorderSimulationRequest;
+import com.kobia.smartstock.dto.SaleRequest;
 import com.kobia.smartstock.dto.StockTransactionDTO;
+import com.kobia.smartstock.dto.StockUpdateRequest;
 import java.util.stream.Collectors;
 import com.kobia.smartstock.entity.PurchaseOrder;
 import com.kobia.smartstock.repository.PurchaseOrderRepository;
 
 import java.util.List;
-import java.util.Map;
+import java.util.Locale;
 
 @RestController
 @RequestMapping("/api/inventory")
@@ -24,63 +48,112 @@ public class InventoryController {
 
     private final ProductRepository productRepository;
     private final StockTransactionRepository transactionRepository;
-    private final UserRepository userRepository;
     private final PurchaseOrderRepository purchaseOrderRepository; // <-- ADD THIS
+    private final LocationService locationService;
+    private final GlobalStockAggregator globalStockAggregator;
+    private final AuditLogWriter auditLogWriter;
+    private final OutboxPublisher outboxPublisher;
+    private final StockEscrowService stockEscrowService;
+    private final PurchaseOrderService purchaseOrderService;
+    private final ReorderSimulationService reorderSimulationService;
+    private final LookupCache lookupCache;
 
     public InventoryController(ProductRepository productRepository,
                                StockTransactionRepository transactionRepository,
-                               UserRepository userRepository,
-                               PurchaseOrderRepository purchaseOrderRepository) { // <-- ADD THIS
+                               PurchaseOrderRepository purchaseOrderRepository, // <-- ADD THIS
+                               LocationService locationService,
+                               GlobalStockAggregator globalStockAggregator,
+                               AuditLogWriter auditLogWriter,
+                               OutboxPublisher outboxPublisher,
+                               StockEscrowService stockEscrowService,
+                               PurchaseOrderService purchaseOrderService,
+                               ReorderSimulationService reorderSimulationService,
+                               LookupCache lookupCache) {
         this.productRepository = productRepository;
         this.transactionRepository = transactionRepository;
-        this.userRepository = userRepository;
         this.purchaseOrderRepository = purchaseOrderRepository; // <-- ADD THIS
+        this.locationService = locationService;
+        this.globalStockAggregator = globalStockAggregator;
+        this.auditLogWriter = auditLogWriter;
+        this.outboxPublisher = outboxPublisher;
+        this.stockEscrowService = stockEscrowService;
+        this.purchaseOrderService = purchaseOrderService;
+        this.reorderSimulationService = reorderSimulationService;
+        this.lookupCache = lookupCache;
     }
 
     // 1. View all products (Accessible to anyone with inventory permissions)
+    // Optional ?fields=sku,currentStock trims each row to the listed properties
     @GetMapping("/products")
     @PreAuthorize("hasAnyAuthority('VIEW_INVENTORY', 'MANAGE_INVENTORY', 'PROCESS_SALE')")
-    public ResponseEntity<List<Product>> getAllProducts() {
-        return ResponseEntity.ok(productRepository.findAll());
+    @ReplicaRead(maxStalenessMs = 2000)
+    public ResponseEntity<?> getAllProducts(@RequestParam(required = false) String fields) {
+        FieldSelection selection;
+        try {
+            selection = FieldSelection.parse(fields, ProductDTO.class);
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(ex.getMessage());
+        }
+        List<ProductDTO> products = productRepository.findAll().stream().map(ProductDTO::from).collect(Collectors.toList());
+        return ResponseEntity.ok(FieldSelection.apply(selection, products));
     }
 
     // 2. Add a new product to the catalog (Store Manager / Clerk)
     @PostMapping("/products")
     @PreAuthorize("hasAuthority('MANAGE_INVENTORY')")
+    @Transactional
     public ResponseEntity<?> addProduct(@RequestBody Product product) {
         if (productRepository.findBySku(product.getSku()).isPresent()) {
             return ResponseEntity.badRequest().body("Product with SKU " + product.getSku() + " already exists.");
         }
+        product.setStockShards(0); // escrow is switched on separately, once the stock row exists
         Product saved = productRepository.save(product);
-        return ResponseEntity.ok(saved);
+
+        // Opening stock lands on the default location; currentStock is already the global total
+        locationService.openStock(locationService.resolve(null), saved, saved.getCurrentStock());
+        outboxPublisher.productUpserted(saved);
+        StockExceptionType exception = StockExceptionType.of(saved.getCurrentStock(), saved.getReorderPoint());
+        if (exception != null) {
+            outboxPublisher.stockExceptionChanged(saved, null, exception);
+        }
+        return ResponseEntity.ok(ProductDTO.from(saved));
     }
 
     // 3. Update stock levels (Restock, Damage Adjustment, etc.)
     @PostMapping("/stock/update")
     @PreAuthorize("hasAuthority('MANAGE_INVENTORY')")
-    public ResponseEntity<?> updateStock(@RequestBody Map<String, Object> request, Authentication auth) {
-        String sku = (String) request.get("sku");
-        Integer quantity = (Integer) request.get("quantity");
-        String type = (String) request.get("transactionType"); // "RESTOCK" or "ADJUSTMENT"
-        String notes = (String) request.get("notes");
+    @Transactional
+    public ResponseEntity<?> updateStock(@RequestBody StockUpdateRequest request, Authentication auth) {
+        String sku = request.sku();
+        Integer quantity = request.quantity();
+        String type = request.transactionType(); // "RESTOCK" or "ADJUSTMENT"
+        String notes = request.notes();
+        Location location = locationService.resolve(request.location());
 
-        Product product = productRepository.findBySku(sku)
+        Product product = lookupCache.product(sku)
                 .orElseThrow(() -> new RuntimeException("Product not found"));
-        User user = userRepository.findByUsername(auth.getName())
+        User user = lookupCache.user(auth.getName())
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
-        // Update the actual stock count
-        product.setCurrentStock(product.getCurrentStock() + quantity);
-        productRepository.save(product);
+        // Update the stock count at this location only; the global total follows asynchronously.
+        // Removals follow the same rule as sales, escrowed or not: never below zero at the location.
+        locationService.ensureStockRow(location, product);
+        if (quantity >= 0) {
+            stockEscrowService.put(location, product, quantity);
+        } else if (!stockEscrowService.take(location, product, -quantity)) {
+            return ResponseEntity.badRequest().body("Insufficient stock for SKU: " + sku + " at " + location.getCode());
+        }
+        globalStockAggregator.record(product.getId(), quantity);
 
         // Record the audit trail transaction
         StockTransaction transaction = new StockTransaction();
         transaction.setProduct(product);
+        transaction.setLocation(location);
         transaction.setHandledBy(user); // Links the action directly to the logged-in user
         transaction.setTransactionType(type);
         transaction.setQuantity(quantity);
         transaction.setNotes(notes);
-        transactionRepository.save(transaction);
+        auditLogWriter.record(transaction);
 
         return ResponseEntity.ok("Stock updated successfully");
     }
@@ -88,46 +161,69 @@ public class InventoryController {
     // 4. Process a Sale (Cashier)
     @PostMapping("/sale")
     @PreAuthorize("hasAuthority('PROCESS_SALE')")
-    public ResponseEntity<?> processSale(@RequestBody Map<String, Object> request, Authentication auth) {
-        String sku = (String) request.get("sku");
-        Integer quantity = (Integer) request.get("quantity"); // The amount being sold
+    @Transactional
+    public ResponseEntity<?> processSale(@RequestBody SaleRequest request, Authentication auth) {
+        String sku = request.sku();
+        Integer quantity = request.quantity(); // The amount being sold
+        Location location = locationService.resolve(request.location());
 
-        Product product = productRepository.findBySku(sku)
+        Product product = lookupCache.product(sku)
                 .orElseThrow(() -> new RuntimeException("Product not found"));
-
-        // Prevent selling items we don't have
-        if (product.getCurrentStock() < quantity) {
-            return ResponseEntity.badRequest().body("Insufficient stock for SKU: " + sku);
-        }
-
-        User user = userRepository.findByUsername(auth.getName())
+        User user = lookupCache.user(auth.getName())
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
-        // Deduct the stock
-        product.setCurrentStock(product.getCurrentStock() - quantity);
-        productRepository.save(product);
+        // Deduct the stock at this location, refusing to sell items we don't have there.
+        // Hot SKUs in escrow mode take from one of several shard rows instead of the single location row.
+        if (!stockEscrowService.take(location, product, quantity)) {
+            return ResponseEntity.badRequest().body("Insufficient stock for SKU: " + sku + " at " + location.getCode());
+        }
+        globalStockAggregator.record(product.getId(), -quantity);
 
         // Record the sale in the audit trail
         StockTransaction transaction = new StockTransaction();
         transaction.setProduct(product);
+        transaction.setLocation(location);
         transaction.setHandledBy(user);
         transaction.setTransactionType("SALE");
         transaction.setQuantity(-quantity); // Negative quantity because stock is leaving
         transaction.setNotes("Point of Sale transaction");
-        transactionRepository.save(transaction);
+        auditLogWriter.record(transaction);
 
         return ResponseEntity.ok("Sale processed successfully");
     } // <--- THIS BRACE CLOSES processSale()
 
+    // 4b. Switch escrow mode for a hot SKU: {"shards": N} splits its stock at every location N ways, 0 merges it back
+    @PostMapping("/products/{sku}/escrow")
+    @PreAuthorize("hasAuthority('MANAGE_INVENTORY')")
+    public ResponseEntity<?> configureEscrow(@PathVariable String sku, @RequestBody EscrowRequest request) {
+        // Not from the lookup cache: this product gets modified, and cached entities are shared
+        Product product = productRepository.findBySku(sku)
+                .orElseThrow(() -> new RuntimeException("Product not found"));
+        try {
+            stockEscrowService.configure(product, request.shards() != null ? request.shards() : 0);
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(ex.getMessage());
+        }
+        return ResponseEntity.ok(ProductDTO.from(productRepository.findById(product.getId()).orElseThrow()));
+    }
+
     // 5. View Audit Trail (Store Managers Only)
     @GetMapping("/transactions")
     @PreAuthorize("hasAuthority('MANAGE_INVENTORY')")
-    public ResponseEntity<List<StockTransactionDTO>> getAuditTrail() {
+    @ReplicaRead(maxStalenessMs = 10000)
+    public ResponseEntity<?> getAuditTrail(@RequestParam(required = false) String fields) {
+        FieldSelection selection;
+        try {
+            selection = FieldSelection.parse(fields, StockTransactionDTO.class);
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(ex.getMessage());
+        }
         List<StockTransactionDTO> auditTrail = transactionRepository.findAll().stream().map(tx -> {
             StockTransactionDTO dto = new StockTransactionDTO();
             dto.setId(tx.getId());
             dto.setSku(tx.getProduct().getSku());
             dto.setProductName(tx.getProduct().getName());
+            dto.setLocation(tx.getLocation() != null ? tx.getLocation().getCode() : null);
             dto.setHandledBy(tx.getHandledBy().getUsername());
             dto.setTransactionType(tx.getTransactionType());
             dto.setQuantity(tx.getQuantity());
@@ -136,23 +232,25 @@ public class InventoryController {
             return dto;
         }).collect(Collectors.toList());
 
-        return ResponseEntity.ok(auditTrail);
+        return ResponseEntity.ok(FieldSelection.apply(selection, auditTrail));
     }
 
     // 6. Generate a Purchase Order (Store Managers Only)
     @PostMapping("/purchase-order")
     @PreAuthorize("hasAuthority('MANAGE_INVENTORY')")
-    public ResponseEntity<?> generatePurchaseOrder(@RequestBody Map<String, Object> request, Authentication auth) {
-        String sku = (String) request.get("sku");
-        Integer quantity = (Integer) request.get("quantity");
+    public ResponseEntity<?> generatePurchaseOrder(@RequestBody PurchaseOrderRequest request, Authentication auth) {
+        String sku = request.sku();
+        Integer quantity = request.quantity();
+        Location location = locationService.resolve(request.location());
 
-        Product product = productRepository.findBySku(sku)
+        Product product = lookupCache.product(sku)
                 .orElseThrow(() -> new RuntimeException("Product not found"));
-        User user = userRepository.findByUsername(auth.getName())
+        User user = lookupCache.user(auth.getName())
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
         PurchaseOrder po = new PurchaseOrder();
         po.setProduct(product);
+        po.setLocation(location);
         po.setQuantityOrdered(quantity);
         po.setGeneratedBy(user);
         // Status defaults to PENDING
@@ -162,12 +260,77 @@ public class InventoryController {
         return ResponseEntity.ok("Purchase Order generated successfully for " + quantity + " units of " + product.getName());
     }
 
-    // 7. View All Purchase Orders
+    // 7. View Purchase Orders, newest first, optionally only those in one status (?status=APPROVED)
     @GetMapping("/purchase-orders")
     @PreAuthorize("hasAuthority('MANAGE_INVENTORY')")
-    public ResponseEntity<?> getPurchaseOrders() {
-        // In a real app we'd use a DTO here too, but for speed we will return the entities directly
-        // (ensure you don't have circular references in your JSON!)
-        return ResponseEntity.ok(purchaseOrderRepository.findByOrderByOrderDateDesc());
+    @ReplicaRead(maxStalenessMs = 10000)
+    public ResponseEntity<?> getPurchaseOrders(@RequestParam(required = false) String status,
+                                               @RequestParam(defaultValue = "0") int page,
+                                               @RequestParam(defaultValue = "50") int size,
+                                               @RequestParam(required = false) String fields) {
+        FieldSelection selection;
+        try {
+            selection = FieldSelection.parse(fields, PurchaseOrderDTO.class);
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(ex.getMessage());
+        }
+        Pageable pageable = PageRequest.of(page, Math.min(size, 500), Sort.by(Sort.Direction.DESC, "orderDate"));
+        Page<PurchaseOrderDTO> orders = (status == null || status.isBlank()
+                ? purchaseOrderRepository.findAllBy(pageable)
+                : purchaseOrderRepository.findByStatus(status.toUpperCase(Locale.ROOT), pageable))
+                .map(PurchaseOrderDTO::from);
+        return ResponseEntity.ok(FieldSelection.apply(selection, orders));
+    }
+
+    // 8. Approve a Purchase Order so it can be received
+    @PostMapping("/purchase-orders/{id}/approve")
+    @PreAuthorize("hasAuthority('MANAGE_INVENTORY')")
+    public ResponseEntity<?> approvePurchaseOrder(@PathVariable Long id, Authentication auth) {
+        User user = lookupCache.user(auth.getName())
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        if (!purchaseOrderService.approve(id, user)) {
+            return ResponseEntity.badRequest().body("Purchase order " + id + " is not pending approval.");
+        }
+        return ResponseEntity.ok("Purchase order " + id + " approved");
+    }
+
+    // 9. Receive a delivery: one or more approved POs, each fully or partly, restocked in one transaction
+    @PostMapping("/purchase-orders/receive")
+    @PreAuthorize("hasAuthority('MANAGE_INVENTORY')")
+    public ResponseEntity<?> receiveDelivery(@RequestBody ReceiveDeliveryRequest request, Authentication auth) {
+        User user = lookupCache.user(auth.getName())
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        List<PurchaseOrder> received;
+        try {
+            received = purchaseOrderService.receive(request, user);
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(ex.getMessage());
+        }
+        return ResponseEntity.ok(received.stream().map(PurchaseOrderDTO::from).collect(Collectors.toList()));
+    }
+
+    // 10. Suggest reorder points and order quantities by simulating the sales history (Store Managers Only)
+    // e.g. {"skus": ["A-100"], "serviceLevel": 0.98, "leadTimeDays": 5}; omit skus to run the whole catalog.
+    // Starts a job and answers 202 with its id; poll GET /reorder-simulation/{id} for the policies
+    @PostMapping("/reorder-simulation")
+    @PreAuthorize("hasAuthority('MANAGE_INVENTORY')")
+    @ReplicaRead(maxStalenessMs = 60000)
+    public ResponseEntity<?> simulateReorderPolicies(@RequestBody ReorderSimulationRequest request) {
+        try {
+            return ResponseEntity.accepted().body(reorderSimulationService.submit(request));
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(ex.getMessage());
+        } catch (IllegalStateException ex) {
+            return ResponseEntity.status(429).body(ex.getMessage());
+        }
+    }
+
+    // 11. Status of a reorder simulation job, with its policies once DONE (Store Managers Only)
+    @GetMapping("/reorder-simulation/{id}")
+    @PreAuthorize("hasAuthority('MANAGE_INVENTORY')")
+    public ResponseEntity<?> getReorderSimulation(@PathVariable String id) {
+        return reorderSimulationService.job(id)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(404).body("Simulation job not found"));
     }
 } // <--- THIS BRACE CLOSES THE ENTIRE CLASS
\ No newline at end of file
@@ -0,0 +1,87 @@
+package com.kobia.smartstock.controller;
+
+import com.kobia.smartstock.config.ReplicaRead;
+import com.kobia.smartstock.dto.LocationStockDTO;
+import com.kobia.smartstock.entity.Location;
+import com.kobia.smartstock.entity.LocationStock;
+import com.kobia.smartstock.repository.LocationRepository;
+import com.kobia.smartstock.repository.LocationStockRepository;
+import com.kobia.smartstock.repository.StockShardRepository;
+import com.kobia.smartstock.service.LocationService;
+import com.kobia.smartstock.service.StockEscrowService;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/inventory/locations")
+public class LocationController {
+
+    private final LocationRepository locationRepository;
+    private final LocationStockRepository locationStockRepository;
+    private final StockShardRepository stockShardRepository;
+    private final LocationService locationService;
+
+    public LocationController(LocationRepository locationRepository,
+                              LocationStockRepository locationStockRepository,
+                              StockShardRepository stockShardRepository,
+                              LocationService locationService) {
+        this.locationRepository = locationRepository;
+        this.locationStockRepository = locationStockRepository;
+        this.stockShardRepository = stockShardRepository;
+        this.locationService = locationService;
+    }
+
+    // 1. List stores and warehouses
+    @GetMapping
+    @PreAuthorize("hasAnyAuthority('VIEW_INVENTORY', 'MANAGE_INVENTORY', 'PROCESS_SALE')")
+    @ReplicaRead
+    public ResponseEntity<List<Location>> getLocations() {
+        return ResponseEntity.ok(locationRepository.findAll());
+    }
+
+    // 2. Register a new store or warehouse (Store Manager)
+    @PostMapping
+    @PreAuthorize("hasAuthority('MANAGE_INVENTORY')")
+    public ResponseEntity<?> addLocation(@RequestBody Location location) {
+        if (locationRepository.findByCode(location.getCode()).isPresent()) {
+            return ResponseEntity.badRequest().body("Location with code " + location.getCode() + " already exists.");
+        }
+        return ResponseEntity.ok(locationRepository.save(location));
+    }
+
+    // 3. Stock on hand at one location, read from that location's partition of location_stock
+    @GetMapping("/{code}/stock")
+    @PreAuthorize("hasAnyAuthority('VIEW_INVENTORY', 'MANAGE_INVENTORY', 'PROCESS_SALE')")
+    @ReplicaRead(maxStalenessMs = 2000)
+    public ResponseEntity<Page<LocationStockDTO>> getLocationStock(@PathVariable String code,
+                                                                   @RequestParam(defaultValue = "0") int page,
+                                                                   @RequestParam(defaultValue = "100") int size) {
+        Location location = locationService.resolve(code);
+        Page<LocationStock> rows = locationStockRepository
+                .findByLocationId(location.getId(), PageRequest.of(page, Math.min(size, 500), Sort.by("product.sku")));
+
+        // Hot SKUs in escrow mode keep most of their stock in shard rows; add those back in
+        List<Long> escrowed = rows.stream()
+                .filter(row -> StockEscrowService.isEscrowed(row.getProduct()))
+                .map(row -> row.getProduct().getId())
+                .toList();
+        Map<Long, Long> sharded = new HashMap<>();
+        if (!escrowed.isEmpty()) {
+            for (Object[] sum : stockShardRepository.sumByProduct(location.getId(), escrowed)) {
+                sharded.put((Long) sum[0], ((Number) sum[1]).longValue());
+            }
+        }
+        Page<LocationStockDTO> stock = rows.map(row -> new LocationStockDTO(location.getCode(), row.getProduct().getSku(),
+                row.getProduct().getName(),
+                row.getQuantity() + Math.toIntExact(sharded.getOrDefault(row.getProduct().getId(), 0L))));
+        return ResponseEntity.ok(stock);
+    }
+}
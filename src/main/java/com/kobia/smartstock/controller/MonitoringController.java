@@ -0,0 +1,60 @@
+package com.kobia.smartstock.controller;
+
+import com.kobia.smartstock.config.QueryProfiler;
+import com.kobia.smartstock.config.RequestThrottle;
+import com.kobia.smartstock.service.LookupCache;
+import com.kobia.smartstock.service.StockReservationService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/monitoring")
+public class MonitoringController {
+
+    private final RequestThrottle requestThrottle;
+    private final StockReservationService reservationService;
+    private final QueryProfiler queryProfiler;
+    private final LookupCache lookupCache;
+
+    public MonitoringController(RequestThrottle requestThrottle, StockReservationService reservationService,
+                                QueryProfiler queryProfiler, LookupCache lookupCache) {
+        this.requestThrottle = requestThrottle;
+        this.reservationService = reservationService;
+        this.queryProfiler = queryProfiler;
+        this.lookupCache = lookupCache;
+    }
+
+    // Admission counters: per endpoint class admitted/throttled, plus global in-flight and shed counts
+    @GetMapping("/throttle")
+    @PreAuthorize("hasAuthority('VIEW_SYSTEM_METRICS')")
+    public ResponseEntity<Map<String, Object>> getThrottleStats() {
+        return ResponseEntity.ok(requestThrottle.snapshot());
+    }
+
+    // Reservation expiry: holds waiting in the timing wheel and how many have lapsed since startup
+    @GetMapping("/reservations")
+    @PreAuthorize("hasAuthority('VIEW_SYSTEM_METRICS')")
+    public ResponseEntity<Map<String, Object>> getReservationStats() {
+        return ResponseEntity.ok(reservationService.snapshot());
+    }
+
+    // SQL profile: slowest statement shapes over the rolling window, and per endpoint statement counts,
+    // SQL time and suspected N+1 requests (heaviest endpoint first)
+    @GetMapping("/queries")
+    @PreAuthorize("hasAuthority('VIEW_SYSTEM_METRICS')")
+    public ResponseEntity<Map<String, Object>> getQueryStats() {
+        return ResponseEntity.ok(queryProfiler.snapshot());
+    }
+
+    // Product and user lookup caches: size, hit ratio, evictions and admission rejections, for sizing them
+    @GetMapping("/cache")
+    @PreAuthorize("hasAuthority('VIEW_SYSTEM_METRICS')")
+    public ResponseEntity<Map<String, Object>> getCacheStats() {
+        return ResponseEntity.ok(lookupCache.snapshot());
+    }
+}
@@ -0,0 +1,55 @@
+package com.kobia.smartstock.controller;
+
+import com.kobia.smartstock.dto.OutboxEventDTO;
+import com.kobia.smartstock.repository.OutboxEventRepository;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@RestController
+@RequestMapping("/api/events")
+public class OutboxController {
+
+    private static final int MAX_PAGE = 10_000;
+
+    private final OutboxEventRepository outboxEventRepository;
+
+    public OutboxController(OutboxEventRepository outboxEventRepository) {
+        this.outboxEventRepository = outboxEventRepository;
+    }
+
+    // Change feed: events with a seq above "after", in seq order. Pass back "nextAfter" to resume.
+    // Seqs are only handed out once an event has committed (OutboxSequencer), so however long a transaction
+    // runs, its events land above every cursor already given out and are never skipped. Read from the primary:
+    // a replica's feed can trail the cursor a client got here a moment ago.
+    // "gap" is true when events after the cursor have been purged (retention-days); the consumer then has to
+    // reload its state and take a fresh cursor rather than carry on.
+    // Optional ?type=STOCK_EXCEPTION_CHANGED narrows the feed to one event type.
+    @GetMapping
+    @PreAuthorize("hasAnyAuthority('READ_CHANGE_EVENTS', 'MANAGE_INVENTORY')")
+    public ResponseEntity<Map<String, Object>> getEvents(@RequestParam(defaultValue = "0") long after,
+                                                         @RequestParam(defaultValue = "1000") int limit,
+                                                         @RequestParam(required = false) String type) {
+        Limit page = Limit.of(Math.min(limit, MAX_PAGE));
+        List<OutboxEventDTO> events = (type == null || type.isBlank()
+                ? outboxEventRepository.findBySeqGreaterThanOrderBySeqAsc(after, page)
+                : outboxEventRepository.findByEventTypeAndSeqGreaterThanOrderBySeqAsc(type, after, page))
+                .stream()
+                .map(e -> new OutboxEventDTO(e.getId(), e.getSeq(), e.getAggregateType(), e.getAggregateId(),
+                        e.getEventType(), e.getPayload(), e.getCreatedAt()))
+                .collect(Collectors.toList());
+        Long oldest = outboxEventRepository.findMinSeq();
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("events", events);
+        response.put("nextAfter", events.isEmpty() ? after : events.get(events.size() - 1).seq());
+        response.put("gap", after > 0 && oldest != null && oldest > after + 1);
+        return ResponseEntity.ok(response);
+    }
+}
@@ -0,0 +1,106 @@
+package com.kobia.smartstock.controller;
+
+import com.kobia.smartstock.dto.ReservationDTO;
+import com.kobia.smartstock.dto.ReservationRequest;
+import com.kobia.smartstock.entity.Location;
+import com.kobia.smartstock.entity.Product;
+import com.kobia.smartstock.entity.StockReservation;
+import com.kobia.smartstock.entity.User;
+import com.kobia.smartstock.service.LocationService;
+import com.kobia.smartstock.service.LookupCache;
+import com.kobia.smartstock.service.StockReservationService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/inventory/reservations")
+public class ReservationController {
+
+    private final StockReservationService reservationService;
+    private final LookupCache lookupCache;
+    private final LocationService locationService;
+
+    public ReservationController(StockReservationService reservationService,
+                                 LookupCache lookupCache,
+                                 LocationService locationService) {
+        this.reservationService = reservationService;
+        this.lookupCache = lookupCache;
+        this.locationService = locationService;
+    }
+
+    // 1. Hold stock while a customer checks out; the hold lapses after ttlSeconds unless confirmed
+    @PostMapping
+    @PreAuthorize("hasAuthority('PROCESS_SALE')")
+    public ResponseEntity<?> reserve(@RequestBody ReservationRequest request, Authentication auth) {
+        if (request.quantity() == null || request.quantity() <= 0) {
+            return ResponseEntity.badRequest().body("Quantity must be positive.");
+        }
+        Location location = locationService.resolve(request.location());
+        Product product = lookupCache.product(request.sku())
+                .orElseThrow(() -> new RuntimeException("Product not found"));
+        User user = lookupCache.user(auth.getName())
+                .orElseThrow(() -> new RuntimeException("User not found"));
+
+        StockReservation reservation;
+        try {
+            reservation = reservationService.reserve(location, product, user, request.quantity(),
+                    request.ttlSeconds(), request.reference());
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(ex.getMessage());
+        }
+        if (reservation == null) {
+            return ResponseEntity.badRequest().body("Insufficient stock for SKU: " + request.sku() + " at " + location.getCode());
+        }
+        return ResponseEntity.ok(ReservationDTO.from(reservation));
+    }
+
+    // 2. Look up a hold, e.g. to show the customer how long they have left
+    @GetMapping("/{id}")
+    @PreAuthorize("hasAuthority('PROCESS_SALE')")
+    public ResponseEntity<ReservationDTO> getReservation(@PathVariable Long id) {
+        return ResponseEntity.ok(ReservationDTO.from(reservationService.find(id)));
+    }
+
+    // 3. Checkout completed: the held stock becomes a sale
+    @PostMapping("/{id}/confirm")
+    @PreAuthorize("hasAuthority('PROCESS_SALE')")
+    public ResponseEntity<?> confirm(@PathVariable Long id, Authentication auth) {
+        User user = lookupCache.user(auth.getName())
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        if (!reservationService.confirm(id, user)) {
+            return ResponseEntity.badRequest().body("Reservation " + id + " is no longer active.");
+        }
+        return ResponseEntity.ok("Reservation " + id + " confirmed as a sale");
+    }
+
+    // 4. Cart abandoned or edited: hand the stock back straight away instead of waiting for expiry
+    @PostMapping("/{id}/release")
+    @PreAuthorize("hasAuthority('PROCESS_SALE')")
+    public ResponseEntity<?> release(@PathVariable Long id) {
+        if (!reservationService.release(id)) {
+            return ResponseEntity.badRequest().body("Reservation " + id + " is no longer active.");
+        }
+        return ResponseEntity.ok("Reservation " + id + " released");
+    }
+
+    // 5. Available-to-sell across the chain: stock on hand minus what is held in open carts. Read from the
+    // location and shard rows in the same statement as the holds, not from the cached, lagging currentStock.
+    @GetMapping("/available/{sku}")
+    @PreAuthorize("hasAnyAuthority('VIEW_INVENTORY', 'MANAGE_INVENTORY', 'PROCESS_SALE')")
+    public ResponseEntity<Map<String, Object>> getAvailable(@PathVariable String sku) {
+        Product product = lookupCache.product(sku)
+                .orElseThrow(() -> new RuntimeException("Product not found"));
+        StockReservationService.Availability availability = reservationService.availability(product);
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("sku", product.getSku());
+        body.put("currentStock", availability.onHand());
+        body.put("held", availability.held());
+        body.put("availableToSell", availability.availableToSell());
+        return ResponseEntity.ok(body);
+    }
+}
@@ -0,0 +1,78 @@
+package com.kobia.smartstock.controller;
+
+import com.kobia.smartstock.dto.StockExceptionDTO;
+import com.kobia.smartstock.repository.OutboxEventRepository;
+import com.kobia.smartstock.repository.ProductRepository;
+import com.kobia.smartstock.service.StockExceptionType;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+// Products whose chain-wide stock is low, out or negative. Lists come straight off the exception indexes;
+// clients keep them current by following STOCK_EXCEPTION_CHANGED on /api/events from the summary's eventCursor.
+// Both are read from the primary, like the feed itself: a list from a lagging replica could predate the cursor
+// and miss the changes in between. ANOMALY is the odd one out: products whose currentStock disagrees with the
+// stock rows, reconciled on each request and not on the feed or in the summary.
+@RestController
+@RequestMapping("/api/inventory/exceptions")
+public class StockExceptionController {
+
+    private final ProductRepository productRepository;
+    private final OutboxEventRepository outboxEventRepository;
+
+    public StockExceptionController(ProductRepository productRepository,
+                                    OutboxEventRepository outboxEventRepository) {
+        this.productRepository = productRepository;
+        this.outboxEventRepository = outboxEventRepository;
+    }
+
+    // 1. One exception list, worst first (?type=LOW|ZERO|NEGATIVE|ANOMALY)
+    @GetMapping
+    @PreAuthorize("hasAnyAuthority('VIEW_INVENTORY', 'MANAGE_INVENTORY', 'PROCESS_SALE')")
+    public ResponseEntity<?> getExceptions(@RequestParam(defaultValue = "LOW") String type,
+                                           @RequestParam(defaultValue = "0") int page,
+                                           @RequestParam(defaultValue = "50") int size) {
+        StockExceptionType exceptionType;
+        try {
+            exceptionType = StockExceptionType.valueOf(type.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body("Unknown exception type " + type + ", expected LOW, ZERO, NEGATIVE or ANOMALY.");
+        }
+        if (page < 0 || size < 1) {
+            return ResponseEntity.badRequest().body("page must be 0 or more and size 1 or more.");
+        }
+        Pageable pageable = PageRequest.of(page, Math.min(size, 500));
+        Page<?> exceptions = switch (exceptionType) {
+            case LOW -> productRepository.findLowStock(pageable).map(StockExceptionDTO::from);
+            case ZERO -> productRepository.findZeroStock(pageable).map(StockExceptionDTO::from);
+            case NEGATIVE -> productRepository.findNegativeStock(pageable).map(StockExceptionDTO::from);
+            case ANOMALY -> productRepository.findAnomalies(pageable);
+        };
+        return ResponseEntity.ok(exceptions);
+    }
+
+    // 2. Count per list, plus the change-feed position to poll from. The cursor is read before the counts, so a
+    // change racing this request is replayed rather than missed; each event carries the product's new state,
+    // so applying one twice to a list is harmless (counts are cheap to re-read instead of adjusted).
+    @GetMapping("/summary")
+    @PreAuthorize("hasAnyAuthority('VIEW_INVENTORY', 'MANAGE_INVENTORY', 'PROCESS_SALE')")
+    public ResponseEntity<Map<String, Object>> getSummary() {
+        long eventCursor = outboxEventRepository.findMaxSeq();
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("LOW", productRepository.countLowStock());
+        summary.put("ZERO", productRepository.countZeroStock());
+        summary.put("NEGATIVE", productRepository.countNegativeStock());
+        summary.put("eventCursor", eventCursor);
+        return ResponseEntity.ok(summary);
+    }
+}
@@ -1,21 +1,25 @@
 package com.kobia.smartstock.controller;
 
 import com.kobia.smartstock.config.JwtUtil;
+import com.kobia.smartstock.config.ReplicaRead;
+import com.kobia.smartstock.dto.UserDTO;
+import com.kobia.smartstock.dto.UserRequestDTO;
+import com.kobia.smartstock.entity.Permission;
 import com.kobia.smartstock.entity.User;
 import com.kobia.smartstock.entity.UserRequest;
 import com.kobia.smartstock.repository.UserRepository;
 import com.kobia.smartstock.repository.UserRequestRepository;
+import com.kobia.smartstock.service.LookupCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -30,13 +34,15 @@ public class UserController {
     private final UserRequestRepository userRequestRepository;
     private final PasswordEncoder passwordEncoder;
     private final JwtUtil jwtUtil;
+    private final LookupCache lookupCache;
 
     public UserController(UserRepository userRepository, UserRequestRepository userRequestRepository,
-                          PasswordEncoder passwordEncoder, JwtUtil jwtUtil) {
+                          PasswordEncoder passwordEncoder, JwtUtil jwtUtil, LookupCache lookupCache) {
         this.userRepository = userRepository;
         this.userRequestRepository = userRequestRepository;
         this.passwordEncoder = passwordEncoder;
         this.jwtUtil = jwtUtil;
+        this.lookupCache = lookupCache;
     }
 
     @PostMapping("/register")
@@ -51,12 +57,20 @@ public class UserController {
         user.setPassword(passwordEncoder.encode(user.getPassword()));
 
         // STAGE 1: Lock the account in a quarantine state
-        user.setPermissions(new HashSet<>(List.of("PENDING_APPROVAL")));
+        user.setPermissionMask(Permission.PENDING_APPROVAL.bit());
         userRepository.save(user);
 
         return ResponseEntity.ok(Map.of("message", "Request submitted successfully. Pending Manager approval."));
     }
 
+    // A body naming a permission outside the catalog (User.setPermissions) is the client's mistake
+    @ExceptionHandler(HttpMessageNotReadableException.class)
+    public ResponseEntity<Map<String, String>> handleUnreadableBody(HttpMessageNotReadableException ex) {
+        Throwable cause = ex.getMostSpecificCause();
+        String message = cause instanceof IllegalArgumentException ? cause.getMessage() : "Malformed request body";
+        return ResponseEntity.badRequest().body(Map.of("error", message));
+    }
+
     @PostMapping("/login")
     public ResponseEntity<?> login(@RequestBody Map<String, String> loginRequest) {
         String username = loginRequest.get("username");
@@ -68,18 +82,11 @@ public class UserController {
         }
 
         // PREVENT LOGIN IF IN QUARANTINE STATE
-        if (user.getPermissions().contains("PENDING_APPROVAL")) {
+        if (user.hasPermission(Permission.PENDING_APPROVAL)) {
             return ResponseEntity.status(401).body(Map.of("error", "Access Denied: Your account request is still pending approval by a Store Manager."));
         }
 
-        UserDetails userDetails = new org.springframework.security.core.userdetails.User(
-                user.getUsername(),
-                user.getPassword(),
-                user.getPermissions().stream()
-                        .map(org.springframework.security.core.authority.SimpleGrantedAuthority::new)
-                        .collect(Collectors.toList())
-        );
-        String token = jwtUtil.generateToken(userDetails);
+        String token = jwtUtil.generateToken(user.getUsername(), user.getPermissionMask(), user.getTokenVersion());
         Map<String, Object> response = new HashMap<>();
         response.put("message", "Login successful!");
         response.put("token", token);
@@ -90,9 +97,11 @@ public class UserController {
     // GET QUARANTINED USERS
     @GetMapping("/admin/pending-registrations")
     @PreAuthorize("hasAuthority('APPROVE_USER_CREATION')")
-    public ResponseEntity<List<User>> getPendingRegistrations() {
-        List<User> pending = userRepository.findAll().stream()
-                .filter(u -> u.getPermissions().contains("PENDING_APPROVAL"))
+    @ReplicaRead
+    public ResponseEntity<List<UserDTO>> getPendingRegistrations() {
+        List<UserDTO> pending = userRepository.findAll().stream()
+                .filter(u -> u.hasPermission(Permission.PENDING_APPROVAL))
+                .map(u -> new UserDTO(u.getId(), u.getUsername(), u.getEmail(), u.getPermissions()))
                 .collect(Collectors.toList());
         return ResponseEntity.ok(pending);
     }
@@ -109,10 +118,13 @@ public class UserController {
         if ("APPROVE".equals(action)) {
             // Remove the lock. They now have 0 permissions and will see the blank lock screen
             user.getPermissions().remove("PENDING_APPROVAL");
+            user.revokeTokens();
             userRepository.save(user);
+            lookupCache.invalidateUser(username);
             return ResponseEntity.ok("User approved successfully. They currently have no roles assigned.");
         } else if ("DECLINE".equals(action)) {
             userRepository.delete(user);
+            lookupCache.invalidateUser(username);
             return ResponseEntity.ok("User registration declined and record deleted.");
         }
 
@@ -124,8 +136,11 @@ public class UserController {
     @PreAuthorize("hasAuthority('ASSIGN_PERMISSION')")
     public ResponseEntity<String> assignPermissions(@RequestBody Map<String, Object> request, Authentication auth) {
         String targetUsername = (String) request.get("username");
-        @SuppressWarnings("unchecked")
-        List<String> permissionsToAdd = (List<String>) request.get("permissions");
+        if (!(request.get("permissions") instanceof List<?> requested)
+                || requested.stream().anyMatch(name -> !(name instanceof String))) {
+            return ResponseEntity.badRequest().body("permissions must be a list of permission names");
+        }
+        List<String> permissionsToAdd = requested.stream().map(String.class::cast).toList();
 
         User targetUser = userRepository.findByUsername(targetUsername).orElse(null);
         if (targetUser == null) {
@@ -136,20 +151,30 @@ public class UserController {
             return ResponseEntity.status(403).body("Cannot assign ASSIGN_PERMISSION to self");
         }
 
+        long permissionMask;
+        try {
+            permissionMask = Permission.maskOf(permissionsToAdd);
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(ex.getMessage());
+        }
+
         // CLEAR AND OVERWRITE: Allows for both adding and removing permissions perfectly
-        targetUser.getPermissions().clear();
-        targetUser.getPermissions().addAll(permissionsToAdd);
+        targetUser.setPermissionMask(permissionMask);
+        targetUser.revokeTokens(); // tokens still carrying the old mask stop working
         userRepository.save(targetUser);
+        lookupCache.invalidateUser(targetUsername);
 
         return ResponseEntity.ok("Permissions updated successfully!");
     }
 
     @GetMapping("/admin/users")
     @PreAuthorize("hasAuthority('VIEW_USER_LIST')")
-    public ResponseEntity<List<User>> getAllUsers() {
+    @ReplicaRead
+    public ResponseEntity<List<UserDTO>> getAllUsers() {
         // Only return users who are actually approved (not pending)
-        List<User> activeUsers = userRepository.findAll().stream()
-                .filter(u -> !u.getPermissions().contains("PENDING_APPROVAL"))
+        List<UserDTO> activeUsers = userRepository.findAll().stream()
+                .filter(u -> !u.hasPermission(Permission.PENDING_APPROVAL))
+                .map(u -> new UserDTO(u.getId(), u.getUsername(), u.getEmail(), u.getPermissions()))
                 .collect(Collectors.toList());
         return ResponseEntity.ok(activeUsers);
     }
@@ -179,14 +204,18 @@ public class UserController {
 
     @GetMapping("/admin/requests")
     @PreAuthorize("hasAuthority('VIEW_REQUESTS')")
-    public ResponseEntity<List<UserRequest>> getAllRequests() {
-        return ResponseEntity.ok(userRequestRepository.findAll());
+    @ReplicaRead
+    public ResponseEntity<List<UserRequestDTO>> getAllRequests() {
+        List<UserRequestDTO> requests = userRequestRepository.findAll().stream()
+                .map(UserRequestDTO::from)
+                .collect(Collectors.toList());
+        return ResponseEntity.ok(requests);
     }
 
     @GetMapping("/user/profile")
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<Map<String, Object>> getProfile(Authentication auth) {
-        User user = userRepository.findByUsername(auth.getName())
+        User user = lookupCache.user(auth.getName())
                 .orElseThrow(() -> new RuntimeException("User not found"));
         Map<String, Object> response = new HashMap<>();
         response.put("username", user.getUsername());
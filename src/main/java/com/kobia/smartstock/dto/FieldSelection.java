@@ -0,0 +1,95 @@
+package com.kobia.smartstock.dto;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Method;
+import java.lang.reflect.RecordComponent;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Sparse fieldsets for list endpoints: ?fields=sku,currentStock keeps only those properties of the DTO.
+// Accessors (record components or bean getters) are resolved once per DTO type; without a fields parameter the DTOs are returned untouched.
+public final class FieldSelection {
+
+    private static final Map<Class<?>, Map<String, Method>> ACCESSORS = new ConcurrentHashMap<>();
+
+    private final String[] names;
+    private final Method[] accessors;
+
+    private FieldSelection(String[] names, Method[] accessors) {
+        this.names = names;
+        this.accessors = accessors;
+    }
+
+    // Returns null when every field was requested. Throws IllegalArgumentException on unknown names.
+    public static FieldSelection parse(String fields, Class<?> type) {
+        if (fields == null || fields.isBlank()) {
+            return null;
+        }
+        Map<String, Method> available = ACCESSORS.computeIfAbsent(type, FieldSelection::accessorsOf);
+        String[] names = Arrays.stream(fields.split(",")).map(String::trim).filter(n -> !n.isEmpty()).distinct()
+                .toArray(String[]::new);
+        Method[] accessors = new Method[names.length];
+        for (int i = 0; i < names.length; i++) {
+            accessors[i] = available.get(names[i]);
+            if (accessors[i] == null) {
+                throw new IllegalArgumentException("Unknown field '" + names[i] + "', expected one of " + available.keySet());
+            }
+        }
+        return new FieldSelection(names, accessors);
+    }
+
+    public static Object apply(FieldSelection selection, List<?> rows) {
+        return selection == null ? rows : selection.select(rows);
+    }
+
+    // Paged endpoints keep their page metadata and trim only the rows
+    public static Page<?> apply(FieldSelection selection, Page<?> page) {
+        return selection == null ? page
+                : new PageImpl<>(selection.select(page.getContent()), page.getPageable(), page.getTotalElements());
+    }
+
+    private List<Map<String, Object>> select(List<?> rows) {
+        List<Map<String, Object>> selected = new ArrayList<>(rows.size());
+        for (Object row : rows) {
+            Map<String, Object> values = new LinkedHashMap<>(names.length * 2);
+            for (int i = 0; i < names.length; i++) {
+                try {
+                    values.put(names[i], accessors[i].invoke(row));
+                } catch (ReflectiveOperationException ex) {
+                    throw new IllegalStateException(ex);
+                }
+            }
+            selected.add(values);
+        }
+        return selected;
+    }
+
+    private static Map<String, Method> accessorsOf(Class<?> type) {
+        Map<String, Method> accessors = new LinkedHashMap<>();
+        if (type.isRecord()) {
+            for (RecordComponent component : type.getRecordComponents()) {
+                accessors.put(component.getName(), component.getAccessor());
+            }
+            return accessors;
+        }
+        try {
+            for (PropertyDescriptor property : Introspector.getBeanInfo(type, Object.class).getPropertyDescriptors()) {
+                if (property.getReadMethod() != null) {
+                    accessors.put(property.getName(), property.getReadMethod());
+                }
+            }
+        } catch (IntrospectionException ex) {
+            throw new IllegalStateException(ex);
+        }
+        return accessors;
+    }
+}
@@ -0,0 +1,4 @@
+package com.kobia.smartstock.dto;
+
+public record LocationStockDTO(String location, String sku, String productName, Integer quantity) {
+}
@@ -0,0 +1,9 @@
+package com.kobia.smartstock.dto;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+
+import java.time.LocalDateTime;
+
+public record OutboxEventDTO(Long id, Long seq, String aggregateType, Long aggregateId, String eventType,
+                             @JsonRawValue String payload, LocalDateTime createdAt) {
+}
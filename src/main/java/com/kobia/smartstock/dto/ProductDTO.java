@@ -0,0 +1,13 @@
+package com.kobia.smartstock.dto;
+
+import com.kobia.smartstock.entity.Product;
+
+public record ProductDTO(Long id, String sku, String name, String category, Double unitPrice,
+                         Integer currentStock, Integer reorderPoint, Integer stockShards) {
+
+    public static ProductDTO from(Product product) {
+        return new ProductDTO(product.getId(), product.getSku(), product.getName(), product.getCategory(),
+                product.getUnitPrice(), product.getCurrentStock(), product.getReorderPoint(),
+                product.getStockShards());
+    }
+}
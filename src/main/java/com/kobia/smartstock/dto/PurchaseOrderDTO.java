@@ -0,0 +1,15 @@
+package com.kobia.smartstock.dto;
+
+import com.kobia.smartstock.entity.PurchaseOrder;
+
+import java.time.LocalDateTime;
+
+public record PurchaseOrderDTO(Long id, String sku, String productName, String location, Integer quantityOrdered,
+                               Integer quantityReceived, String status, String generatedBy, LocalDateTime orderDate) {
+
+    public static PurchaseOrderDTO from(PurchaseOrder po) {
+        return new PurchaseOrderDTO(po.getId(), po.getProduct().getSku(), po.getProduct().getName(),
+                po.getLocation() != null ? po.getLocation().getCode() : null, po.getQuantityOrdered(),
+                po.getQuantityReceived(), po.getStatus(), po.getGeneratedBy().getUsername(), po.getOrderDate());
+    }
+}
@@ -0,0 +1,4 @@
+package com.kobia.smartstock.dto;
+
+public record PurchaseOrderRequest(String sku, Integer quantity, String location) {
+}
@@ -0,0 +1,10 @@
+package com.kobia.smartstock.dto;
+
+import java.util.List;
+
+// One delivery, possibly covering several purchase orders; each line may receive less than was ordered
+public record ReceiveDeliveryRequest(List<Line> lines, String notes) {
+
+    public record Line(Long purchaseOrderId, Integer quantity) {
+    }
+}
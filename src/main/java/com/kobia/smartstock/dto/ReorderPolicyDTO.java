@@ -0,0 +1,6 @@
+package com.kobia.smartstock.dto;
+
+public record ReorderPolicyDTO(String sku, String name, Double meanDailyDemand, Integer currentReorderPoint,
+                               Integer reorderPoint, Integer orderQuantity, Double fillRate, Double costPerDay,
+                               Boolean meetsTarget) {
+}
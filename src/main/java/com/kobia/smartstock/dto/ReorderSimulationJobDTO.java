@@ -0,0 +1,9 @@
+package com.kobia.smartstock.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// status is RUNNING, DONE or FAILED; policies is only set once the job is DONE, error only when it FAILED
+public record ReorderSimulationJobDTO(String id, String status, LocalDateTime submittedAt, LocalDateTime finishedAt,
+                                      String error, List<ReorderPolicyDTO> policies) {
+}
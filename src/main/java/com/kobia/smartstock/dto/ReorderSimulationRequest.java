@@ -0,0 +1,9 @@
+package com.kobia.smartstock.dto;
+
+import java.util.List;
+
+// Every field is optional: no skus means the whole catalog, and the rest fall back to the service defaults
+public record ReorderSimulationRequest(List<String> skus, Double serviceLevel, Integer leadTimeDays,
+                                       Integer historyDays, Integer horizonDays, Integer trials,
+                                       Double orderCost, Double annualHoldingRate) {
+}
@@ -0,0 +1,15 @@
+package com.kobia.smartstock.dto;
+
+import com.kobia.smartstock.entity.StockReservation;
+
+import java.time.LocalDateTime;
+
+public record ReservationDTO(Long id, String sku, String location, Integer quantity, String status,
+                             String reference, LocalDateTime createdAt, LocalDateTime expiresAt) {
+
+    public static ReservationDTO from(StockReservation reservation) {
+        return new ReservationDTO(reservation.getId(), reservation.getProduct().getSku(),
+                reservation.getLocation().getCode(), reservation.getQuantity(), reservation.getStatus(),
+                reservation.getReference(), reservation.getCreatedAt(), reservation.getExpiresAt());
+    }
+}
@@ -0,0 +1,4 @@
+package com.kobia.smartstock.dto;
+
+public record ReservationRequest(String sku, Integer quantity, String location, Integer ttlSeconds, String reference) {
+}
@@ -0,0 +1,4 @@
+package com.kobia.smartstock.dto;
+
+public record SaleRequest(String sku, Integer quantity, String location) {
+}
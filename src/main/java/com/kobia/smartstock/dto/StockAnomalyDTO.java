@@ -0,0 +1,6 @@
+package com.kobia.smartstock.dto;
+
+// currentStock + pendingDelta should equal countedStock (location rows, escrow shards and active holds)
+public record StockAnomalyDTO(Long productId, String sku, String name, Integer currentStock, Long pendingDelta,
+                              Long countedStock) {
+}
@@ -0,0 +1,14 @@
+package com.kobia.smartstock.dto;
+
+import com.kobia.smartstock.entity.Product;
+import com.kobia.smartstock.service.StockExceptionType;
+
+public record StockExceptionDTO(Long productId, String sku, String name, StockExceptionType type,
+                                Integer currentStock, Integer reorderPoint) {
+
+    public static StockExceptionDTO from(Product product) {
+        return new StockExceptionDTO(product.getId(), product.getSku(), product.getName(),
+                StockExceptionType.of(product.getCurrentStock(), product.getReorderPoint()),
+                product.getCurrentStock(), product.getReorderPoint());
+    }
+}
@@ -6,6 +6,7 @@ public class StockTransactionDTO {
     private Long id;
     private String sku;
     private String productName;
+    private String location;
     private String handledBy;
     private String transactionType;
     private Integer quantity;
@@ -19,6 +20,8 @@ public class StockTransactionDTO {
     public void setSku(String sku) { this.sku = sku; }
     public String getProductName() { return productName; }
     public void setProductName(String productName) { this.productName = productName; }
+    public String getLocation() { return location; }
+    public void setLocation(String location) { this.location = location; }
     public String getHandledBy() { return handledBy; }
     public void setHandledBy(String handledBy) { this.handledBy = handledBy; }
     public String getTransactionType() { return transactionType; }
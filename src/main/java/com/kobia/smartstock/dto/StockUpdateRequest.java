@@ -0,0 +1,4 @@
+package com.kobia.smartstock.dto;
+
+public record StockUpdateRequest(String sku, Integer quantity, String transactionType, String notes, String location) {
+}
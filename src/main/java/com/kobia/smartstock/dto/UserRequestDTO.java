@@ -0,0 +1,18 @@
+package com.kobia.smartstock.dto;
+
+import com.kobia.smartstock.entity.UserRequest;
+
+import java.time.LocalDateTime;
+
+public record UserRequestDTO(Long id, String requestType, String targetUsername, String targetEmail, String reason,
+                             String status, String createdBy, String approvedBy, LocalDateTime createdAt,
+                             LocalDateTime updatedAt) {
+
+    public static UserRequestDTO from(UserRequest request) {
+        return new UserRequestDTO(request.getId(), request.getRequestType(), request.getTargetUsername(),
+                request.getTargetEmail(), request.getReason(), request.getStatus(),
+                request.getCreatedBy() != null ? request.getCreatedBy().getUsername() : null,
+                request.getApprovedBy() != null ? request.getApprovedBy().getUsername() : null,
+                request.getCreatedAt(), request.getUpdatedAt());
+    }
+}
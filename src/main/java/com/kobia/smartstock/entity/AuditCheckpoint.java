@@ -0,0 +1,29 @@
+package com.kobia.smartstock.entity;
+
+import jakarta.persistence.*;
+
+// How far one node's audit journal has been copied into stock_transactions. Updated in the same
+// transaction as each batch insert so journal replay after a crash never duplicates rows. Ranges
+// persisted out of order beyond the watermark live in audit_persisted_ranges.
+@Entity
+@Table(name = "audit_journal_checkpoints")
+public class AuditCheckpoint {
+
+    @Id
+    @Column(name = "journal_id", length = 36)
+    private String journalId; // The id in the journal directory's journal.id file
+
+    @Column(nullable = false)
+    private Long segment;
+
+    @Column(nullable = false)
+    private Long watermark; // Every journal byte before this offset is persisted
+
+    // Getters and Setters
+    public String getJournalId() { return journalId; }
+    public void setJournalId(String journalId) { this.journalId = journalId; }
+    public Long getSegment() { return segment; }
+    public void setSegment(Long segment) { this.segment = segment; }
+    public Long getWatermark() { return watermark; }
+    public void setWatermark(Long watermark) { this.watermark = watermark; }
+}
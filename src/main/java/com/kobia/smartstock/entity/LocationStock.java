@@ -0,0 +1,45 @@
+package com.kobia.smartstock.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// Stock on hand for one product at one location. The (location_id, product_id) key keeps every
+// store's counters on separate rows and lets per-location queries scan a single index range.
+@Entity
+@Table(name = "location_stock",
+        uniqueConstraints = @UniqueConstraint(name = "uk_location_stock", columnNames = {"location_id", "product_id"}))
+public class LocationStock {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
+    @JoinColumn(name = "location_id", nullable = false)
+    private Location location;
+
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
+    @JoinColumn(name = "product_id", nullable = false)
+    private Product product;
+
+    @Column(nullable = false)
+    private Integer quantity = 0;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() { updatedAt = LocalDateTime.now(); }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public Location getLocation() { return location; }
+    public void setLocation(Location location) { this.location = location; }
+    public Product getProduct() { return product; }
+    public void setProduct(Product product) { this.product = product; }
+    public Integer getQuantity() { return quantity; }
+    public void setQuantity(Integer quantity) { this.quantity = quantity; }
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+}
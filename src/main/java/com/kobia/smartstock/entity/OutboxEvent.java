@@ -0,0 +1,51 @@
+package com.kobia.smartstock.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// Change event written in the same transaction as the mutation it describes.
+// Consumers page through events by seq to keep their own state in sync without rescanning tables.
+@Entity
+@Table(name = "outbox_events")
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(insertable = false, updatable = false)
+    private Long seq; // Feed position consumers resume from; null until OutboxSequencer numbers the event
+
+    @Column(name = "aggregate_type", nullable = false)
+    private String aggregateType; // e.g., "PRODUCT", "STOCK_TRANSACTION"
+
+    @Column(name = "aggregate_id", nullable = false)
+    private Long aggregateId;
+
+    @Column(name = "event_type", nullable = false)
+    private String eventType; // e.g., "PRODUCT_UPSERTED", "STOCK_RECORDED", "PRODUCT_STOCK_ADJUSTED"
+
+    @Column(nullable = false, length = 4000)
+    private String payload; // JSON
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() { createdAt = LocalDateTime.now(); }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public Long getSeq() { return seq; }
+    public String getAggregateType() { return aggregateType; }
+    public void setAggregateType(String aggregateType) { this.aggregateType = aggregateType; }
+    public Long getAggregateId() { return aggregateId; }
+    public void setAggregateId(Long aggregateId) { this.aggregateId = aggregateId; }
+    public String getEventType() { return eventType; }
+    public void setEventType(String eventType) { this.eventType = eventType; }
+    public String getPayload() { return payload; }
+    public void setPayload(String payload) { this.payload = payload; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
@@ -0,0 +1,36 @@
+package com.kobia.smartstock.entity;
+
+import jakarta.persistence.*;
+
+// A change to a product's global stock, written alongside the location change it mirrors and
+// deleted once GlobalStockAggregator has applied it to Product.currentStock.
+@Entity
+@Table(name = "pending_stock_deltas")
+public class PendingStockDelta {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId; // Plain id: rows are only ever summed per product, never navigated
+
+    @Column(nullable = false)
+    private Integer delta;
+
+    public PendingStockDelta() {
+    }
+
+    public PendingStockDelta(Long productId, Integer delta) {
+        this.productId = productId;
+        this.delta = delta;
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public Long getProductId() { return productId; }
+    public void setProductId(Long productId) { this.productId = productId; }
+    public Integer getDelta() { return delta; }
+    public void setDelta(Integer delta) { this.delta = delta; }
+}
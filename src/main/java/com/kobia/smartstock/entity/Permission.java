@@ -0,0 +1,72 @@
+package com.kobia.smartstock.entity;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Fixed permission catalog. A user's grants are stored in users.permission_mask with bit n set for
+// the constant whose ordinal is n, so new permissions must only ever be appended at the end.
+public enum Permission {
+    PENDING_APPROVAL,
+    VIEW_INVENTORY,
+    MANAGE_INVENTORY,
+    PROCESS_SALE,
+    CREATE_USER_REQUEST,
+    DELETE_USER_REQUEST,
+    APPROVE_USER_CREATION,
+    APPROVE_USER_DELETION,
+    ASSIGN_PERMISSION,
+    VIEW_USER_LIST,
+    VIEW_REQUESTS,
+    READ_CHANGE_EVENTS,
+    VIEW_SYSTEM_METRICS;
+
+    private static final Permission[] VALUES = values();
+    private static final Map<String, Permission> BY_NAME = new HashMap<>();
+
+    static {
+        for (Permission permission : VALUES) {
+            BY_NAME.put(permission.name(), permission);
+        }
+    }
+
+    public long bit() { return 1L << ordinal(); }
+
+    // Returns null for names outside the catalog
+    public static Permission find(String name) {
+        return name != null ? BY_NAME.get(name) : null;
+    }
+
+    public static Permission of(String name) {
+        Permission permission = find(name);
+        if (permission == null) {
+            throw new IllegalArgumentException("Unknown permission: " + name);
+        }
+        return permission;
+    }
+
+    public static boolean has(long mask, Permission permission) {
+        return (mask & permission.bit()) != 0;
+    }
+
+    public static long maskOf(Collection<String> names) {
+        long mask = 0;
+        for (String name : names) {
+            mask |= of(name).bit();
+        }
+        return mask;
+    }
+
+    public static List<String> namesOf(long mask) {
+        List<String> names = new ArrayList<>(Long.bitCount(mask));
+        for (long remaining = mask; remaining != 0; remaining &= remaining - 1) {
+            int index = Long.numberOfTrailingZeros(remaining);
+            if (index < VALUES.length) {
+                names.add(VALUES[index].name());
+            }
+        }
+        return names;
+    }
+}
@@ -28,6 +28,10 @@ public class Product {
     @Column(name = "reorder_point", nullable = false)
     private Integer reorderPoint = 10;
 
+    // Escrow mode for hot SKUs: when > 0, each location's stock is split across this many stock_shards rows
+    @Column(name = "stock_shards", nullable = false)
+    private Integer stockShards = 0;
+
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
 
@@ -55,4 +59,6 @@ public class Product {
     public void setCurrentStock(Integer currentStock) { this.currentStock = currentStock; }
     public Integer getReorderPoint() { return reorderPoint; }
     public void setReorderPoint(Integer reorderPoint) { this.reorderPoint = reorderPoint; }
+    public Integer getStockShards() { return stockShards; }
+    public void setStockShards(Integer stockShards) { this.stockShards = stockShards; }
 }
\ No newline at end of file
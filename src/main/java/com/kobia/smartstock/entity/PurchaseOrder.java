@@ -19,11 +19,28 @@ public class PurchaseOrder {
     @JoinColumn(name = "generated_by", nullable = false)
     private User generatedBy;
 
+    @ManyToOne
+    @JoinColumn(name = "location_id")
+    private Location location; // Receiving location; null for orders raised before locations existed
+
     @Column(nullable = false)
     private Integer quantityOrdered;
 
+    @Column(name = "quantity_received", nullable = false)
+    private Integer quantityReceived = 0; // Grows with each delivery until it reaches quantityOrdered
+
     @Column(nullable = false)
-    private String status = "PENDING"; // PENDING, APPROVED, DELIVERED
+    private String status = "PENDING"; // PENDING, APPROVED, PARTIALLY_DELIVERED, DELIVERED
+
+    @ManyToOne
+    @JoinColumn(name = "approved_by")
+    private User approvedBy;
+
+    @Column(name = "approved_at")
+    private LocalDateTime approvedAt;
+
+    @Column(name = "received_at")
+    private LocalDateTime receivedAt; // Last delivery against this order
 
     @Column(name = "order_date", nullable = false)
     private LocalDateTime orderDate;
@@ -38,10 +55,20 @@ public class PurchaseOrder {
     public void setProduct(Product product) { this.product = product; }
     public User getGeneratedBy() { return generatedBy; }
     public void setGeneratedBy(User generatedBy) { this.generatedBy = generatedBy; }
+    public Location getLocation() { return location; }
+    public void setLocation(Location location) { this.location = location; }
     public Integer getQuantityOrdered() { return quantityOrdered; }
     public void setQuantityOrdered(Integer quantityOrdered) { this.quantityOrdered = quantityOrdered; }
+    public Integer getQuantityReceived() { return quantityReceived; }
+    public void setQuantityReceived(Integer quantityReceived) { this.quantityReceived = quantityReceived; }
     public String getStatus() { return status; }
     public void setStatus(String status) { this.status = status; }
+    public User getApprovedBy() { return approvedBy; }
+    public void setApprovedBy(User approvedBy) { this.approvedBy = approvedBy; }
+    public LocalDateTime getApprovedAt() { return approvedAt; }
+    public void setApprovedAt(LocalDateTime approvedAt) { this.approvedAt = approvedAt; }
+    public LocalDateTime getReceivedAt() { return receivedAt; }
+    public void setReceivedAt(LocalDateTime receivedAt) { this.receivedAt = receivedAt; }
     public LocalDateTime getOrderDate() { return orderDate; }
     public void setOrderDate(LocalDateTime orderDate) { this.orderDate = orderDate; }
 }
\ No newline at end of file
@@ -0,0 +1,41 @@
+package com.kobia.smartstock.entity;
+
+import jakarta.persistence.*;
+
+// One slice of a hot product's stock at a location. A location's stock is its location_stock row
+// plus the sum of its shards; sales take from a random shard so tills rarely wait on each other.
+@Entity
+@Table(name = "stock_shards",
+        uniqueConstraints = @UniqueConstraint(name = "uk_stock_shards", columnNames = {"location_id", "product_id", "shard"}))
+public class StockShard {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
+    @JoinColumn(name = "location_id", nullable = false)
+    private Location location;
+
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
+    @JoinColumn(name = "product_id", nullable = false)
+    private Product product;
+
+    @Column(nullable = false)
+    private Integer shard;
+
+    @Column(nullable = false)
+    private Integer quantity = 0;
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public Location getLocation() { return location; }
+    public void setLocation(Location location) { this.location = location; }
+    public Product getProduct() { return product; }
+    public void setProduct(Product product) { this.product = product; }
+    public Integer getShard() { return shard; }
+    public void setShard(Integer shard) { this.shard = shard; }
+    public Integer getQuantity() { return quantity; }
+    public void setQuantity(Integer quantity) { this.quantity = quantity; }
+}
@@ -19,6 +19,10 @@ public class StockTransaction {
     @JoinColumn(name = "user_id", nullable = false)
     private User handledBy; // Links the action to the specific personnel
 
+    @ManyToOne
+    @JoinColumn(name = "location_id")
+    private Location location; // Where the stock moved; null for entries recorded before locations existed
+
     @Column(name = "transaction_type", nullable = false)
     private String transactionType; // e.g., "RESTOCK", "SALE", "ADJUSTMENT"
 
@@ -38,6 +42,8 @@ public class StockTransaction {
     public void setId(Long id) { this.id = id; }
     public Product getProduct() { return product; }
     public void setProduct(Product product) { this.product = product; }
+    public Location getLocation() { return location; }
+    public void setLocation(Location location) { this.location = location; }
     public User getHandledBy() { return handledBy; }
     public void setHandledBy(User handledBy) { this.handledBy = handledBy; }
     public String getTransactionType() { return transactionType; }
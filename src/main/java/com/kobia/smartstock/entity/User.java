@@ -1,7 +1,8 @@
 package com.kobia.smartstock.entity;
 
 import jakarta.persistence.*;
-import java.util.HashSet;
+import java.util.AbstractSet;
+import java.util.Iterator;
 import java.util.Set;
 
 @Entity
@@ -20,10 +21,13 @@ public class User {
     @Column(nullable = false)
     private String password;
 
-    @ElementCollection(fetch = FetchType.EAGER)
-    @CollectionTable(name = "user_permissions", joinColumns = @JoinColumn(name = "user_id"))
-    @Column(name = "permission")
-    private Set<String> permissions = new HashSet<>();
+    // One bit per Permission constant, replacing the old user_permissions join table
+    @Column(name = "permission_mask", nullable = false)
+    private long permissionMask;
+
+    // Bumped on every permission change; JWTs issued with an older version are refused
+    @Column(name = "token_version", nullable = false)
+    private int tokenVersion;
 
     // Getters and Setters
     public Long getId() { return id; }
@@ -34,6 +38,64 @@ public class User {
     public void setEmail(String email) { this.email = email; }
     public String getPassword() { return password; }
     public void setPassword(String password) { this.password = password; }
-    public Set<String> getPermissions() { return permissions; }
-    public void setPermissions(Set<String> permissions) { this.permissions = permissions; }
+    public long getPermissionMask() { return permissionMask; }
+    public void setPermissionMask(long permissionMask) { this.permissionMask = permissionMask; }
+    public int getTokenVersion() { return tokenVersion; }
+    public void setTokenVersion(int tokenVersion) { this.tokenVersion = tokenVersion; }
+
+    public void revokeTokens() { tokenVersion++; }
+
+    public boolean hasPermission(Permission permission) { return Permission.has(permissionMask, permission); }
+
+    // Live string view of the mask, so callers can keep using contains/add/remove/clear by name
+    public Set<String> getPermissions() { return new PermissionNames(); }
+    public void setPermissions(Set<String> permissions) { this.permissionMask = Permission.maskOf(permissions); }
+
+    private class PermissionNames extends AbstractSet<String> {
+        @Override
+        public boolean contains(Object o) {
+            Permission permission = o instanceof String name ? Permission.find(name) : null;
+            return permission != null && hasPermission(permission);
+        }
+
+        @Override
+        public boolean add(String name) {
+            long before = permissionMask;
+            permissionMask |= Permission.of(name).bit();
+            return permissionMask != before;
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            Permission permission = o instanceof String name ? Permission.find(name) : null;
+            if (permission == null || !hasPermission(permission)) {
+                return false;
+            }
+            permissionMask &= ~permission.bit();
+            return true;
+        }
+
+        @Override
+        public void clear() { permissionMask = 0; }
+
+        @Override
+        public int size() { return Long.bitCount(permissionMask); }
+
+        @Override
+        public Iterator<String> iterator() {
+            Iterator<String> names = Permission.namesOf(permissionMask).iterator();
+            return new Iterator<>() {
+                private String last;
+
+                @Override
+                public boolean hasNext() { return names.hasNext(); }
+
+                @Override
+                public String next() { return last = names.next(); }
+
+                @Override
+                public void remove() { PermissionNames.this.remove(last); }
+            };
+        }
+    }
 }
\ No newline at end of file
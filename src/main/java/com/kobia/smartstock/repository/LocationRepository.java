@@ -0,0 +1,9 @@
+package com.kobia.smartstock.repository;
+
+import com.kobia.smartstock.entity.Location;
+import org.springframework.data.jpa.repository.JpaRepository;
+import java.util.Optional;
+
+public interface LocationRepository extends JpaRepository<Location, Long> {
+    Optional<Location> findByCode(String code);
+}
@@ -0,0 +1,46 @@
+package com.kobia.smartstock.repository;
+
+import com.kobia.smartstock.entity.LocationStock;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface LocationStockRepository extends JpaRepository<LocationStock, Long> {
+
+    boolean existsByLocationIdAndProductId(Long locationId, Long productId);
+
+    @EntityGraph(attributePaths = {"location", "product"})
+    Page<LocationStock> findByLocationId(Long locationId, Pageable pageable);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from LocationStock s where s.location.id = :locationId and s.product.id = :productId")
+    Optional<LocationStock> lockRow(@Param("locationId") Long locationId, @Param("productId") Long productId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from LocationStock s join fetch s.location where s.product.id = :productId order by s.location.id")
+    List<LocationStock> lockByProductId(@Param("productId") Long productId);
+
+    // Conditional decrement: touches only this location's row and never lets it go below zero
+    @Transactional
+    @Modifying
+    @Query("update LocationStock s set s.quantity = s.quantity - :quantity "
+            + "where s.location.id = :locationId and s.product.id = :productId and s.quantity >= :quantity")
+    int decrementIfAvailable(@Param("locationId") Long locationId, @Param("productId") Long productId,
+                             @Param("quantity") int quantity);
+
+    @Transactional
+    @Modifying
+    @Query("update LocationStock s set s.quantity = s.quantity + :delta "
+            + "where s.location.id = :locationId and s.product.id = :productId")
+    int adjust(@Param("locationId") Long locationId, @Param("productId") Long productId, @Param("delta") int delta);
+}
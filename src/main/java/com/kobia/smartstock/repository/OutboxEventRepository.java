@@ -0,0 +1,31 @@
+package com.kobia.smartstock.repository;
+
+import com.kobia.smartstock.entity.OutboxEvent;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+    List<OutboxEvent> findBySeqGreaterThanOrderBySeqAsc(Long after, Limit limit);
+
+    List<OutboxEvent> findByEventTypeAndSeqGreaterThanOrderBySeqAsc(String eventType, Long after, Limit limit);
+
+    // Feed position a snapshot can be resumed from
+    @Query("select coalesce(max(e.seq), 0) from OutboxEvent e")
+    long findMaxSeq();
+
+    // Seqs are contiguous, so a consumer is missing events when this is above its cursor + 1
+    @Query("select min(e.seq) from OutboxEvent e")
+    Long findMinSeq();
+
+    @Transactional
+    @Modifying
+    @Query("delete from OutboxEvent e where e.createdAt < :cutoff")
+    int deleteCreatedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -0,0 +1,24 @@
+package com.kobia.smartstock.repository;
+
+import com.kobia.smartstock.entity.PendingStockDelta;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface PendingStockDeltaRepository extends JpaRepository<PendingStockDelta, Long> {
+
+    @Query("select distinct d.productId from PendingStockDelta d")
+    List<Long> findPendingProductIds();
+
+    // SKIP LOCKED where the database has it, so flushers on two nodes split the rows instead of queueing
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("select d from PendingStockDelta d where d.productId = :productId")
+    List<PendingStockDelta> lockByProductId(@Param("productId") Long productId);
+}
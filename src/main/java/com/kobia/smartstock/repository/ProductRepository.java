@@ -1,9 +1,68 @@
 package com.kobia.smartstock.repository;
 
+import com.kobia.smartstock.dto.StockAnomalyDTO;
 import com.kobia.smartstock.entity.Product;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 import java.util.Optional;
 
 public interface ProductRepository extends JpaRepository<Product, Long> {
+
+    // Stock the chain actually holds: location rows, escrow shards and active holds
+    String COUNTED_STOCK = "coalesce((select sum(s.quantity) from LocationStock s where s.product.id = p.id), 0) "
+            + "+ coalesce((select sum(h.quantity) from StockShard h where h.product.id = p.id), 0) "
+            + "+ coalesce((select sum(r.quantity) from StockReservation r where r.product.id = p.id and r.status = 'ACTIVE'), 0)";
+    // Location changes committed but not yet folded into currentStock by GlobalStockAggregator
+    String PENDING_DELTA = "coalesce((select sum(d.delta) from PendingStockDelta d where d.productId = p.id), 0)";
+    String ANOMALY_FILTER = " from Product p where p.currentStock + " + PENDING_DELTA + " <> " + COUNTED_STOCK;
+
     Optional<Product> findBySku(String sku);
-}
\ No newline at end of file
+
+    @Transactional
+    @Modifying
+    @Query("update Product p set p.currentStock = p.currentStock + :delta where p.id = :id")
+    int adjustCurrentStock(@Param("id") Long id, @Param("delta") int delta);
+
+    @Query("select p.stockShards from Product p where p.id = :id")
+    int findStockShards(@Param("id") Long id);
+
+    // One column only: saving the entity would write back the currentStock it was loaded with, undoing any
+    // flush that committed since. Clears the persistence context, so reload the product to see the change.
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Product p set p.stockShards = :shards where p.id = :id")
+    int updateStockShards(@Param("id") Long id, @Param("shards") int shards);
+
+    // Exception lists. On Postgres each one is served by the partial index with the same predicate
+    // and sort key (db/vendor/postgresql/V7), so keep them in step.
+    @Query("select p from Product p where p.currentStock > 0 and p.currentStock <= p.reorderPoint "
+            + "order by p.currentStock - p.reorderPoint, p.id")
+    Page<Product> findLowStock(Pageable pageable);
+
+    @Query("select p from Product p where p.currentStock = 0 order by p.sku")
+    Page<Product> findZeroStock(Pageable pageable);
+
+    @Query("select p from Product p where p.currentStock < 0 order by p.currentStock, p.id")
+    Page<Product> findNegativeStock(Pageable pageable);
+
+    @Query("select count(p) from Product p where p.currentStock > 0 and p.currentStock <= p.reorderPoint")
+    long countLowStock();
+
+    @Query("select count(p) from Product p where p.currentStock = 0")
+    long countZeroStock();
+
+    @Query("select count(p) from Product p where p.currentStock < 0")
+    long countNegativeStock();
+
+    // Products whose currentStock has drifted from the stock rows. Every subquery is one index lookup per product,
+    // but the whole catalog is checked, so this is read on demand rather than kept as an index like the lists above.
+    @Query(value = "select new com.kobia.smartstock.dto.StockAnomalyDTO(p.id, p.sku, p.name, p.currentStock, "
+            + PENDING_DELTA + ", " + COUNTED_STOCK + ")" + ANOMALY_FILTER + " order by p.sku",
+            countQuery = "select count(p)" + ANOMALY_FILTER)
+    Page<StockAnomalyDTO> findAnomalies(Pageable pageable);
+}
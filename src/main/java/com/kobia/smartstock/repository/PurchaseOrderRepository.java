@@ -1,9 +1,40 @@
 package com.kobia.smartstock.repository;
 
 import com.kobia.smartstock.entity.PurchaseOrder;
+import com.kobia.smartstock.entity.User;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface PurchaseOrderRepository extends JpaRepository<PurchaseOrder, Long> {
-    List<PurchaseOrder> findByOrderByOrderDateDesc();
-}
\ No newline at end of file
+
+    @EntityGraph(attributePaths = {"product", "generatedBy", "location"})
+    Page<PurchaseOrder> findAllBy(Pageable pageable);
+
+    @EntityGraph(attributePaths = {"product", "generatedBy", "location"})
+    Page<PurchaseOrder> findByStatus(String status, Pageable pageable);
+
+    // Locked in id order, so two clerks receiving overlapping deliveries queue instead of deadlocking
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select po from PurchaseOrder po join fetch po.product left join fetch po.location "
+            + "where po.id in :ids order by po.id")
+    List<PurchaseOrder> lockAllById(@Param("ids") Collection<Long> ids);
+
+    @Transactional
+    @Modifying
+    @Query("update PurchaseOrder po set po.status = 'APPROVED', po.approvedBy = :approver, po.approvedAt = :approvedAt "
+            + "where po.id = :id and po.status = 'PENDING'")
+    int approveIfPending(@Param("id") Long id, @Param("approver") User approver,
+                         @Param("approvedAt") LocalDateTime approvedAt);
+}
@@ -0,0 +1,38 @@
+package com.kobia.smartstock.repository;
+
+import com.kobia.smartstock.entity.StockReservation;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface StockReservationRepository extends JpaRepository<StockReservation, Long> {
+
+    // Conditional transition out of ACTIVE: confirm, release and expiry race on this, and only one wins
+    @Transactional
+    @Modifying
+    @Query("update StockReservation r set r.status = :status, r.resolvedAt = :resolvedAt "
+            + "where r.id = :id and r.status = 'ACTIVE'")
+    int resolve(@Param("id") Long id, @Param("status") String status, @Param("resolvedAt") LocalDateTime resolvedAt);
+
+    // Sellable stock (location rows plus escrow shards) and active holds of one product. One statement, so
+    // both come from the same snapshot: a hold moves stock out of the first sum into the second atomically.
+    @Query(value = "select (select coalesce(sum(quantity), 0) from location_stock where product_id = :productId) "
+            + "+ (select coalesce(sum(quantity), 0) from stock_shards where product_id = :productId), "
+            + "(select coalesce(sum(quantity), 0) from stock_reservations where product_id = :productId and status = 'ACTIVE')",
+            nativeQuery = true)
+    List<Object[]> sumSellableAndHeld(@Param("productId") Long productId);
+
+    // Active holds past their deadline, for the safety sweep
+    @Query("select r.id from StockReservation r where r.status = 'ACTIVE' and r.expiresAt < :now order by r.expiresAt")
+    List<Long> findOverdueIds(@Param("now") LocalDateTime now, Limit limit);
+
+    // (id, expiresAt) of every active hold, to rebuild the expiry wheel on startup
+    @Query("select r.id, r.expiresAt from StockReservation r where r.status = 'ACTIVE'")
+    List<Object[]> findActiveDeadlines();
+}
@@ -0,0 +1,45 @@
+package com.kobia.smartstock.repository;
+
+import com.kobia.smartstock.entity.StockShard;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface StockShardRepository extends JpaRepository<StockShard, Long> {
+
+    // Same conditional decrement as LocationStockRepository, against a single shard
+    @Transactional
+    @Modifying
+    @Query("update StockShard s set s.quantity = s.quantity - :quantity where s.location.id = :locationId "
+            + "and s.product.id = :productId and s.shard = :shard and s.quantity >= :quantity")
+    int decrementIfAvailable(@Param("locationId") Long locationId, @Param("productId") Long productId,
+                             @Param("shard") int shard, @Param("quantity") int quantity);
+
+    @Transactional
+    @Modifying
+    @Query("update StockShard s set s.quantity = s.quantity + :delta where s.location.id = :locationId "
+            + "and s.product.id = :productId and s.shard = :shard")
+    int adjust(@Param("locationId") Long locationId, @Param("productId") Long productId,
+               @Param("shard") int shard, @Param("delta") int delta);
+
+    // Always locked in shard order, after the location_stock row, so rebalancing tills can't deadlock
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from StockShard s where s.location.id = :locationId and s.product.id = :productId order by s.shard")
+    List<StockShard> lockShards(@Param("locationId") Long locationId, @Param("productId") Long productId);
+
+    @Transactional
+    @Modifying
+    @Query("delete from StockShard s where s.location.id = :locationId and s.product.id = :productId")
+    int deleteShards(@Param("locationId") Long locationId, @Param("productId") Long productId);
+
+    @Query("select s.product.id, sum(s.quantity) from StockShard s where s.location.id = :locationId "
+            + "and s.product.id in :productIds group by s.product.id")
+    List<Object[]> sumByProduct(@Param("locationId") Long locationId, @Param("productIds") Collection<Long> productIds);
+}
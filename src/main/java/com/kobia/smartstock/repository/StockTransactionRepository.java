@@ -1,9 +1,25 @@
 package com.kobia.smartstock.repository;
 
 import com.kobia.smartstock.entity.StockTransaction;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface StockTransactionRepository extends JpaRepository<StockTransaction, Long> {
     List<StockTransaction> findByProductId(Long productId);
-}
\ No newline at end of file
+
+    // Audit trail rows need their product, user and location; fetch them in the same query
+    @Override
+    @EntityGraph(attributePaths = {"product", "handledBy", "location"})
+    List<StockTransaction> findAll();
+
+    // Best sellers since the given date, by units sold (SALE quantities are negative, so ascending sum)
+    @Query("select t.product.id from StockTransaction t where t.transactionType = 'SALE' and t.transactionDate >= :since "
+            + "group by t.product.id order by sum(t.quantity)")
+    List<Long> findTopSellingProductIds(@Param("since") LocalDateTime since, Limit limit);
+}
@@ -2,9 +2,15 @@ package com.kobia.smartstock.repository;
 
 import com.kobia.smartstock.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUsername(String username);
     Optional<User> findByEmail(String email);
+
+    @Query("select u.tokenVersion from User u where u.username = :username")
+    Optional<Integer> findTokenVersion(@Param("username") String username);
 }
\ No newline at end of file
@@ -1,7 +1,15 @@
 package com.kobia.smartstock.repository;
 
 import com.kobia.smartstock.entity.UserRequest;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.List;
+
 public interface UserRequestRepository extends JpaRepository<UserRequest, Long> {
-}
\ No newline at end of file
+
+    // Requester and approver in the same query, for the request listing
+    @Override
+    @EntityGraph(attributePaths = {"createdBy", "approvedBy"})
+    List<UserRequest> findAll();
+}
@@ -0,0 +1,291 @@
+package com.kobia.smartstock.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+// Append-only local journal for audit records, split into numbered segment files.
+// Appenders reserve a byte range with one atomic add and write it positionally, then share fsyncs:
+// whichever waiting thread wins the CAS forces the file for everyone who wrote before it started.
+// Each journal directory carries a random id (journal.id) so every node keeps its own database checkpoint.
+public class AuditJournal implements AutoCloseable {
+
+    private static final int MAGIC = 0x53544B41; // "STKA"
+    private static final int ROLLBACK_MAGIC = 0x53544B52; // "STKR", payload is the voided record's offset
+    private static final int HEADER_BYTES = 12;  // magic, payload length, crc
+    private static final String ID_FILE = "journal.id";
+
+    private final Path directory;
+    private final String id;
+    private final boolean unidentified;
+    private final ReentrantReadWriteLock rotationLock = new ReentrantReadWriteLock();
+    private final AtomicBoolean forcing = new AtomicBoolean();
+    private final AtomicLong forcesStarted = new AtomicLong();
+    private volatile long forcesCompleted;
+
+    private volatile long segment;
+    private volatile FileChannel channel;
+    private final AtomicLong nextOffset = new AtomicLong();
+
+    public AuditJournal(Path directory) {
+        this.directory = directory;
+        try {
+            Files.createDirectories(directory);
+            List<Long> existing = existingSegments();
+            Path idFile = directory.resolve(ID_FILE);
+            this.unidentified = !Files.exists(idFile) && !existing.isEmpty();
+            this.id = Files.exists(idFile) ? Files.readString(idFile).trim() : createId(idFile);
+            long last = existing.stream().mapToLong(Long::longValue).max().orElse(0);
+            openSegment(last + 1);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot open audit journal in " + directory, ex);
+        }
+    }
+
+    public String id() { return id; }
+
+    // True when segments were written before journals had an id; they were checkpointed under the old
+    // single shared row
+    public boolean isUnidentified() { return unidentified; }
+
+    public long currentSegment() { return segment; }
+
+    public long currentSize() { return nextOffset.get(); }
+
+    // Appends the record and returns once it is on disk, with its byte range in the current segment
+    public AuditRecord append(AuditRecord record) {
+        return appendAll(List.of(record)).get(0);
+    }
+
+    // Appends the records with a single shared fsync
+    public List<AuditRecord> appendAll(List<AuditRecord> records) {
+        rotationLock.readLock().lock();
+        try {
+            List<AuditRecord> appended = new ArrayList<>(records.size());
+            for (AuditRecord record : records) {
+                byte[] frame = encode(record);
+                long start = write(frame);
+                appended.add(record.withJournalRange(start, start + frame.length));
+            }
+            awaitForce();
+            return appended;
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Audit journal write failed", ex);
+        } finally {
+            rotationLock.readLock().unlock();
+        }
+    }
+
+    // Marks an appended record as belonging to a transaction that rolled back, so replay skips it.
+    // Returns the marker's own byte range, which has to be accounted for like any other record.
+    public AuditRecord appendRollback(AuditRecord record) {
+        byte[] frame = ByteBuffer.allocate(HEADER_BYTES + 8)
+                .putInt(ROLLBACK_MAGIC).putInt(8).putInt(crc(longBytes(record.journalStart()), 0, 8))
+                .putLong(record.journalStart()).array();
+        rotationLock.readLock().lock();
+        try {
+            long start = write(frame);
+            awaitForce();
+            return AuditRecord.rolledBack(start, start + frame.length);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Audit journal write failed", ex);
+        } finally {
+            rotationLock.readLock().unlock();
+        }
+    }
+
+    // Reserves the frame's byte range and writes it there; the caller holds the rotation read lock
+    private long write(byte[] frame) throws IOException {
+        long start = nextOffset.getAndAdd(frame.length);
+        ByteBuffer buffer = ByteBuffer.wrap(frame);
+        long position = start;
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+        return start;
+    }
+
+    // Group commit: a force that *starts* after our write makes it durable
+    private void awaitForce() throws IOException {
+        long needed = forcesStarted.get() + 1;
+        while (forcesCompleted < needed) {
+            if (forcing.compareAndSet(false, true)) {
+                try {
+                    long mine = forcesStarted.incrementAndGet();
+                    channel.force(false);
+                    forcesCompleted = mine;
+                } finally {
+                    forcing.set(false);
+                }
+            } else {
+                LockSupport.parkNanos(20_000);
+            }
+        }
+    }
+
+    // Starts a new segment once every byte of the current one has been persisted elsewhere.
+    // Returns the retired segment number, or -1 if nothing was rotated.
+    public long rotateIfDrained(long persistedWatermark, long maxSegmentBytes) {
+        if (nextOffset.get() < maxSegmentBytes || nextOffset.get() != persistedWatermark) {
+            return -1;
+        }
+        rotationLock.writeLock().lock();
+        try {
+            if (nextOffset.get() != persistedWatermark) {
+                return -1;
+            }
+            long retired = segment;
+            channel.close();
+            openSegment(retired + 1);
+            return retired;
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Audit journal rotation failed", ex);
+        } finally {
+            rotationLock.writeLock().unlock();
+        }
+    }
+
+    private void openSegment(long number) throws IOException {
+        channel = FileChannel.open(segmentPath(number),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.READ);
+        nextOffset.set(channel.size());
+        segment = number;
+    }
+
+    public List<Long> existingSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith("audit-") && name.endsWith(".log"))
+                    .map(name -> Long.parseLong(name.substring(6, name.length() - 4)))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    public void deleteSegment(long number) throws IOException {
+        Files.deleteIfExists(segmentPath(number));
+    }
+
+    // Reads every intact record of a closed segment, minus those a rollback marker voids. Torn or
+    // never-written ranges are skipped byte by byte until the next valid frame, so one lost write can't
+    // hide later durable ones.
+    public List<AuditRecord> readSegment(long number) throws IOException {
+        byte[] data = Files.readAllBytes(segmentPath(number));
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        List<AuditRecord> records = new ArrayList<>();
+        Set<Long> rolledBack = new HashSet<>();
+        int offset = 0;
+        while (offset + HEADER_BYTES <= data.length) {
+            int magic = buffer.getInt(offset);
+            int length = buffer.getInt(offset + 4);
+            if ((magic != MAGIC && magic != ROLLBACK_MAGIC) || length <= 0 || offset + HEADER_BYTES + length > data.length
+                    || crc(data, offset + HEADER_BYTES, length) != buffer.getInt(offset + 8)) {
+                offset++;
+                continue;
+            }
+            if (magic == ROLLBACK_MAGIC) {
+                rolledBack.add(buffer.getLong(offset + HEADER_BYTES));
+            } else {
+                AuditRecord record = decode(data, offset + HEADER_BYTES, length);
+                records.add(record.withJournalRange(offset, offset + HEADER_BYTES + length));
+            }
+            offset += HEADER_BYTES + length;
+        }
+        if (!rolledBack.isEmpty()) {
+            records.removeIf(record -> rolledBack.contains(record.journalStart()));
+        }
+        return records;
+    }
+
+    private static String createId(Path idFile) throws IOException {
+        String id = UUID.randomUUID().toString();
+        Path temp = idFile.resolveSibling(ID_FILE + ".tmp");
+        Files.writeString(temp, id);
+        Files.move(temp, idFile, StandardCopyOption.ATOMIC_MOVE);
+        return id;
+    }
+
+    private Path segmentPath(long number) {
+        return directory.resolve(String.format("audit-%010d.log", number));
+    }
+
+    private static byte[] encode(AuditRecord record) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(96);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeLong(record.productId());
+            out.writeLong(record.userId());
+            out.writeLong(record.locationId() != null ? record.locationId() : -1);
+            out.writeUTF(record.transactionType());
+            out.writeInt(record.quantity());
+            out.writeBoolean(record.notes() != null);
+            out.writeUTF(record.notes() != null ? record.notes() : "");
+            out.writeLong(record.transactionDate().toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(record.transactionDate().getNano());
+            byte[] payload = bytes.toByteArray();
+
+            ByteBuffer frame = ByteBuffer.allocate(HEADER_BYTES + payload.length);
+            frame.putInt(MAGIC).putInt(payload.length).putInt(crc(payload, 0, payload.length)).put(payload);
+            return frame.array();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static AuditRecord decode(byte[] data, int offset, int length) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data, offset, length));
+        long productId = in.readLong();
+        long userId = in.readLong();
+        long locationId = in.readLong();
+        String type = in.readUTF();
+        int quantity = in.readInt();
+        boolean hasNotes = in.readBoolean();
+        String notes = in.readUTF();
+        LocalDateTime date = LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC);
+        return new AuditRecord(productId, userId, locationId >= 0 ? locationId : null, type, quantity,
+                hasNotes ? notes : null, date, -1, -1);
+    }
+
+    private static byte[] longBytes(long value) {
+        return ByteBuffer.allocate(8).putLong(value).array();
+    }
+
+    private static int crc(byte[] data, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(data, offset, length);
+        return (int) crc.getValue();
+    }
+
+    @Override
+    public void close() throws IOException {
+        rotationLock.writeLock().lock();
+        try {
+            channel.force(false);
+            channel.close();
+        } finally {
+            rotationLock.writeLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,465 @@
+package com.kobia.smartstock.service;
+
+import com.kobia.smartstock.entity.StockTransaction;
+import com.kobia.smartstock.repository.StockTransactionRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.NonTransientDataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.Savepoint;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// Writes the stock_transactions audit trail in one of two durability modes:
+//  - transaction (default): the row is saved in the caller's transaction, as before.
+//  - journal: just before the stock change commits, the record is fsynced to a local journal; once it
+//    has committed the record is pushed onto a lock-free ring buffer, and a single writer thread drains
+//    it into the database in JDBC batches. If the commit fails after all, a rollback marker is fsynced
+//    after the record so it is never inserted. Producers wait for space when the buffer is full, so a
+//    slow database throttles the tills instead of dropping audit rows. Unpersisted journal records are
+//    replayed on the next start; only a crash between the database commit failing and the marker
+//    reaching disk can replay a row for a change that didn't commit, never lose one that did.
+//    Each node checkpoints its progress under its own journal id.
+// Either way the matching STOCK_RECORDED outbox event commits together with the audit row.
+@Component
+public class AuditLogWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuditLogWriter.class);
+
+    static final String INSERT_SQL = "INSERT INTO stock_transactions "
+            + "(product_id, user_id, location_id, transaction_type, quantity, notes, transaction_date) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final long LEGACY_CHECKPOINT_ID = 1L; // the single audit_checkpoints row used before V12
+    private static final long MAX_SEGMENT_BYTES = 64L * 1024 * 1024;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(2);
+
+    private final StockTransactionRepository transactionRepository;
+    private final OutboxPublisher outboxPublisher;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean journaled;
+    private final int batchSize;
+
+    private final AuditJournal journal;
+    private final MpscRingBuffer<AuditRecord> buffer;
+    private final JournalProgress progress = new JournalProgress();
+    private final AtomicLong backpressureWaits = new AtomicLong();
+    private final AtomicLong recordsWritten = new AtomicLong();
+    private final AtomicLong recordsRejected = new AtomicLong();
+    private volatile boolean running;
+    private Thread writerThread;
+
+    public AuditLogWriter(StockTransactionRepository transactionRepository,
+                          OutboxPublisher outboxPublisher,
+                          JdbcTemplate jdbcTemplate,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${smartstock.audit.mode:transaction}") String mode,
+                          @Value("${smartstock.audit.journal-dir:audit-journal}") String journalDir,
+                          @Value("${smartstock.audit.buffer-capacity:8192}") int bufferCapacity,
+                          @Value("${smartstock.audit.batch-size:500}") int batchSize) {
+        this.transactionRepository = transactionRepository;
+        this.outboxPublisher = outboxPublisher;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.journaled = switch (mode) {
+            case "transaction" -> false;
+            case "journal" -> true;
+            default -> throw new IllegalArgumentException("Unknown smartstock.audit.mode: " + mode);
+        };
+        this.journal = journaled ? new AuditJournal(Path.of(journalDir)) : null;
+        this.buffer = journaled ? new MpscRingBuffer<>(bufferCapacity) : null;
+    }
+
+    public void record(StockTransaction transaction) {
+        if (!journaled) {
+            transactionRepository.save(transaction);
+            outboxPublisher.stockRecorded(AuditRecord.of(transaction));
+            return;
+        }
+        journal(List.of(AuditRecord.of(transaction)));
+    }
+
+    // Many rows from one business operation (e.g. a delivery): in transaction mode they go in as a single
+    // JDBC batch in the caller's transaction, together with their outbox events; in journal mode they
+    // share one fsync
+    public void recordAll(List<StockTransaction> transactions) {
+        if (transactions.isEmpty()) {
+            return;
+        }
+        List<AuditRecord> records = transactions.stream().map(AuditRecord::of).toList();
+        if (journaled) {
+            journal(records);
+            return;
+        }
+        insertBatch(records);
+    }
+
+    private void journal(List<AuditRecord> records) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            records.forEach(this::enqueue);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private List<AuditRecord> appended = List.of();
+
+            // A failure here fails the commit, so no change commits without its audit record on disk
+            @Override
+            public void beforeCommit(boolean readOnly) { appended = journal.appendAll(records); }
+
+            @Override
+            public void afterCompletion(int status) {
+                for (AuditRecord record : appended) {
+                    if (status == STATUS_ROLLED_BACK) {
+                        offer(AuditRecord.rolledBack(record.journalStart(), record.journalEnd()));
+                        offer(journal.appendRollback(record));
+                    } else {
+                        offer(record);
+                    }
+                }
+            }
+        });
+    }
+
+    void enqueue(AuditRecord record) {
+        offer(journal.append(record));
+    }
+
+    private void offer(AuditRecord journaledRecord) {
+        if (!buffer.offer(journaledRecord)) {
+            backpressureWaits.incrementAndGet();
+            do {
+                LockSupport.parkNanos(50_000);
+            } while (!buffer.offer(journaledRecord));
+        }
+    }
+
+    public long getBackpressureWaits() { return backpressureWaits.get(); }
+
+    public long getRecordsWritten() { return recordsWritten.get(); }
+
+    // Journaled records the database refused outright; each one is logged at ERROR with its contents
+    public long getRecordsRejected() { return recordsRejected.get(); }
+
+    public int getBufferedRecords() { return buffer != null ? buffer.size() : 0; }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!journaled || running) {
+            return;
+        }
+        replayJournal();
+        running = true;
+        writerThread = new Thread(this::drainLoop, "audit-log-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException, IOException {
+        if (!running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(writerThread);
+        writerThread.join(TimeUnit.SECONDS.toMillis(30));
+        journal.close();
+    }
+
+    private void drainLoop() {
+        List<AuditRecord> batch = new ArrayList<>(batchSize);
+        while (running || !buffer.isEmpty()) {
+            AuditRecord record;
+            while (batch.size() < batchSize && (record = buffer.poll()) != null) {
+                batch.add(record);
+            }
+            if (batch.isEmpty()) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+                continue;
+            }
+            if (!persist(batch)) {
+                return; // shutting down; the journal still holds whatever wasn't written
+            }
+            batch.clear();
+            long retired = journal.rotateIfDrained(progress.watermark, MAX_SEGMENT_BYTES);
+            if (retired >= 0) {
+                progress.reset();
+                deleteQuietly(retired);
+            }
+        }
+    }
+
+    // Retries until the batch lands, so a database outage backs up into the ring buffer. A batch the
+    // database rejects outright (e.g. a row breaking a constraint) is retried one row at a time, and rows
+    // that still fail are logged and skipped so they can't wedge the writer and the tills behind it.
+    private boolean persist(List<AuditRecord> batch) {
+        progress.markPersisted(batch);
+        List<AuditRecord> rows = batch.stream().filter(record -> !record.isRolledBack()).toList();
+        boolean rowByRow = false;
+        long backoffMillis = 100;
+        while (true) {
+            try {
+                List<AuditRecord> rejected = rowByRow ? writeEach(rows) : writeAll(rows);
+                recordsWritten.addAndGet(rows.size() - rejected.size());
+                recordsRejected.addAndGet(rejected.size());
+                for (AuditRecord record : rejected) {
+                    logger.error("Audit record rejected by the database and skipped: " + record);
+                }
+                return true;
+            } catch (RuntimeException ex) {
+                if (!rowByRow && !rows.isEmpty() && ex instanceof NonTransientDataAccessException) {
+                    logger.error("Audit batch of " + rows.size() + " rows rejected, inserting them one at a time: "
+                            + ex.getMessage());
+                    rowByRow = true;
+                    continue;
+                }
+                if (!running) {
+                    logger.warn("Audit writer stopped with " + batch.size() + " records left in the journal");
+                    return false;
+                }
+                if (ex instanceof NonTransientDataAccessException) {
+                    logger.error("Audit checkpoint cannot be written, retrying in " + backoffMillis + " ms: " + ex.getMessage());
+                } else {
+                    logger.warn("Audit batch insert failed, retrying in " + backoffMillis + " ms: " + ex.getMessage());
+                }
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(backoffMillis));
+                backoffMillis = Math.min(backoffMillis * 2, 5000);
+            }
+        }
+    }
+
+    private List<AuditRecord> writeAll(List<AuditRecord> rows) {
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!rows.isEmpty()) {
+                insertBatch(rows);
+            }
+            saveCheckpoint(journal.currentSegment(), progress.watermark, progress.ahead);
+        });
+        return List.of();
+    }
+
+    // Each row behind its own JDBC savepoint, so a rejected one doesn't abort the rest of the transaction.
+    // Savepoints are taken on the connection directly: the JPA transaction manager doesn't allow nesting.
+    private List<AuditRecord> writeEach(List<AuditRecord> rows) {
+        List<AuditRecord> rejected = new ArrayList<>();
+        transactionTemplate.executeWithoutResult(status -> {
+            rejected.clear();
+            for (AuditRecord row : rows) {
+                Savepoint savepoint = jdbcTemplate.execute((ConnectionCallback<Savepoint>) Connection::setSavepoint);
+                try {
+                    insertBatch(List.of(row));
+                    jdbcTemplate.execute((ConnectionCallback<Object>) connection -> {
+                        connection.releaseSavepoint(savepoint);
+                        return null;
+                    });
+                } catch (NonTransientDataAccessException ex) {
+                    jdbcTemplate.execute((ConnectionCallback<Object>) connection -> {
+                        connection.rollback(savepoint);
+                        return null;
+                    });
+                    rejected.add(row);
+                }
+            }
+            saveCheckpoint(journal.currentSegment(), progress.watermark, progress.ahead);
+        });
+        return rejected;
+    }
+
+    private void insertBatch(List<AuditRecord> batch) {
+        outboxPublisher.stockRecorded(batch);
+        jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, record) -> {
+            ps.setLong(1, record.productId());
+            ps.setLong(2, record.userId());
+            if (record.locationId() != null) {
+                ps.setLong(3, record.locationId());
+            } else {
+                ps.setNull(3, Types.BIGINT);
+            }
+            ps.setString(4, record.transactionType());
+            ps.setInt(5, record.quantity());
+            ps.setString(6, record.notes());
+            ps.setTimestamp(7, Timestamp.valueOf(record.transactionDate()));
+        });
+    }
+
+    private void saveCheckpoint(long segment, long watermark, Map<Long, Long> ranges) {
+        int updated = jdbcTemplate.update(
+                "UPDATE audit_journal_checkpoints SET segment = ?, watermark = ? WHERE journal_id = ?",
+                segment, watermark, journal.id());
+        if (updated == 0) {
+            jdbcTemplate.update(
+                    "INSERT INTO audit_journal_checkpoints (journal_id, segment, watermark) VALUES (?, ?, ?)",
+                    journal.id(), segment, watermark);
+        }
+        jdbcTemplate.update("DELETE FROM audit_persisted_ranges WHERE journal_id = ?", journal.id());
+        if (!ranges.isEmpty()) {
+            jdbcTemplate.batchUpdate(
+                    "INSERT INTO audit_persisted_ranges (journal_id, start_offset, end_offset) VALUES (?, ?, ?)",
+                    List.copyOf(ranges.entrySet()), ranges.size(), (ps, range) -> {
+                        ps.setString(1, journal.id());
+                        ps.setLong(2, range.getKey());
+                        ps.setLong(3, range.getValue());
+                    });
+        }
+    }
+
+    // Copies journal records from earlier runs that never reached the database, then deletes those segments
+    private void replayJournal() {
+        List<Long> segments;
+        Map<Long, List<AuditRecord>> journaled = new TreeMap<>();
+        try {
+            segments = journal.existingSegments().stream()
+                    .filter(segment -> segment < journal.currentSegment())
+                    .toList();
+            for (long segment : segments) {
+                journaled.put(segment, journal.readSegment(segment));
+            }
+        } catch (IOException ex) {
+            throw new IllegalStateException("Cannot replay audit journal", ex);
+        }
+        int replayed = transactionTemplate.execute(status -> {
+            Checkpoint checkpoint = loadCheckpoint(!segments.isEmpty());
+            List<AuditRecord> pending = new ArrayList<>();
+            journaled.forEach((segment, records) -> {
+                if (segment < checkpoint.segment()) {
+                    return;
+                }
+                for (AuditRecord record : records) {
+                    if (segment != checkpoint.segment() || !checkpoint.covers(record)) {
+                        pending.add(record);
+                    }
+                }
+            });
+            for (int from = 0; from < pending.size(); from += batchSize) {
+                insertBatch(pending.subList(from, Math.min(from + batchSize, pending.size())));
+            }
+            saveCheckpoint(journal.currentSegment(), 0, Map.of());
+            return pending.size();
+        });
+        progress.reset();
+        if (replayed > 0) {
+            logger.info("Replayed " + replayed + " audit records from the local journal");
+        }
+        segments.forEach(this::deleteQuietly);
+    }
+
+    // This journal's own checkpoint. A journal written before checkpoints were kept per journal has none
+    // and takes over the old shared row instead, deleting it (under a row lock) so no other node can too.
+    private Checkpoint loadCheckpoint(boolean hasEarlierSegments) {
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                "SELECT segment, watermark FROM audit_journal_checkpoints WHERE journal_id = ?", journal.id());
+        if (!rows.isEmpty()) {
+            TreeMap<Long, Long> persisted = new TreeMap<>();
+            for (Map<String, Object> range : jdbcTemplate.queryForList(
+                    "SELECT start_offset, end_offset FROM audit_persisted_ranges WHERE journal_id = ?", journal.id())) {
+                persisted.put(((Number) range.get("start_offset")).longValue(), ((Number) range.get("end_offset")).longValue());
+            }
+            return new Checkpoint(((Number) rows.get(0).get("segment")).longValue(),
+                    ((Number) rows.get(0).get("watermark")).longValue(), persisted);
+        }
+        if (hasEarlierSegments) {
+            List<Map<String, Object>> legacy = jdbcTemplate.queryForList(
+                    "SELECT segment, watermark, persisted_ranges FROM audit_checkpoints WHERE id = ? FOR UPDATE",
+                    LEGACY_CHECKPOINT_ID);
+            if (!legacy.isEmpty()) {
+                jdbcTemplate.update("DELETE FROM audit_checkpoints WHERE id = ?", LEGACY_CHECKPOINT_ID);
+                logger.info("Audit journal " + journal.id() + " took over the shared pre-upgrade checkpoint");
+                return new Checkpoint(((Number) legacy.get(0).get("segment")).longValue(),
+                        ((Number) legacy.get(0).get("watermark")).longValue(),
+                        JournalProgress.parseRanges((String) legacy.get(0).get("persisted_ranges")));
+            }
+        }
+        return new Checkpoint(-1, 0, new TreeMap<>());
+    }
+
+    private record Checkpoint(long segment, long watermark, TreeMap<Long, Long> persisted) {
+
+        boolean covers(AuditRecord record) {
+            if (record.journalEnd() <= watermark) {
+                return true;
+            }
+            Map.Entry<Long, Long> range = persisted.floorEntry(record.journalStart());
+            return range != null && range.getValue() >= record.journalEnd();
+        }
+    }
+
+    private void deleteQuietly(long segment) {
+        try {
+            journal.deleteSegment(segment);
+        } catch (IOException ex) {
+            logger.warn("Could not delete audit journal segment " + segment + ": " + ex.getMessage());
+        }
+    }
+
+    // Tracks which journal byte ranges of the current segment are in the database. Producers can hand
+    // records to the ring in a different order than they were journaled, so besides the contiguous
+    // watermark we remember the ranges persisted ahead of it, merged so there is one entry per gap
+    // rather than one per record.
+    static final class JournalProgress {
+        long watermark;
+        final TreeMap<Long, Long> ahead = new TreeMap<>();
+
+        void reset() {
+            watermark = 0;
+            ahead.clear();
+        }
+
+        void markPersisted(List<AuditRecord> batch) {
+            for (AuditRecord record : batch) {
+                add(record.journalStart(), record.journalEnd());
+            }
+            Map.Entry<Long, Long> next;
+            while ((next = ahead.firstEntry()) != null && next.getKey() <= watermark) {
+                watermark = Math.max(watermark, next.getValue());
+                ahead.pollFirstEntry();
+            }
+        }
+
+        private void add(long start, long end) {
+            Map.Entry<Long, Long> before = ahead.floorEntry(start);
+            if (before != null && before.getValue() >= start) {
+                start = before.getKey();
+                end = Math.max(end, before.getValue());
+            }
+            Map.Entry<Long, Long> following;
+            while ((following = ahead.ceilingEntry(start)) != null && following.getKey() <= end) {
+                end = Math.max(end, following.getValue());
+                ahead.remove(following.getKey());
+            }
+            ahead.put(start, end);
+        }
+
+        // The "start-end,..." format of the pre-V12 audit_checkpoints.persisted_ranges column
+        static TreeMap<Long, Long> parseRanges(String ranges) {
+            TreeMap<Long, Long> parsed = new TreeMap<>();
+            if (ranges != null && !ranges.isBlank()) {
+                for (String range : ranges.split(",")) {
+                    String[] bounds = range.split("-");
+                    parsed.put(Long.parseLong(bounds[0]), Long.parseLong(bounds[1]));
+                }
+            }
+            return parsed;
+        }
+    }
+}
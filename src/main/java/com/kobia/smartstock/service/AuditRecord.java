@@ -0,0 +1,37 @@
+package com.kobia.smartstock.service;
+
+import com.kobia.smartstock.entity.StockTransaction;
+
+import java.time.LocalDateTime;
+
+// Flat, id-only copy of a StockTransaction that can be journaled and batch-inserted without a
+// persistence context. journalStart/journalEnd are -1 when the record was not journaled. A rolledBack
+// entry carries only a journal range: it tells the writer those bytes are settled but hold nothing to insert.
+public record AuditRecord(Long productId, Long userId, Long locationId, String transactionType,
+                          int quantity, String notes, LocalDateTime transactionDate,
+                          long journalStart, long journalEnd) {
+
+    public static AuditRecord of(StockTransaction transaction) {
+        return new AuditRecord(
+                transaction.getProduct().getId(),
+                transaction.getHandledBy().getId(),
+                transaction.getLocation() != null ? transaction.getLocation().getId() : null,
+                transaction.getTransactionType(),
+                transaction.getQuantity(),
+                transaction.getNotes(),
+                transaction.getTransactionDate() != null ? transaction.getTransactionDate() : LocalDateTime.now(),
+                -1, -1);
+    }
+
+    public static AuditRecord rolledBack(long journalStart, long journalEnd) {
+        return new AuditRecord(null, null, null, null, 0, null, null, journalStart, journalEnd);
+    }
+
+    public boolean isRolledBack() {
+        return transactionType == null;
+    }
+
+    public AuditRecord withJournalRange(long start, long end) {
+        return new AuditRecord(productId, userId, locationId, transactionType, quantity, notes, transactionDate, start, end);
+    }
+}
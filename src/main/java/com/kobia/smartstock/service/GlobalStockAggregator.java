@@ -0,0 +1,86 @@
+package com.kobia.smartstock.service;
+
+import com.kobia.smartstock.entity.PendingStockDelta;
+import com.kobia.smartstock.entity.Product;
+import com.kobia.smartstock.repository.PendingStockDeltaRepository;
+import com.kobia.smartstock.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+// Maintains Product.currentStock as the chain-wide total of all location rows. Location writes only
+// insert a pending delta row in their own transaction; the flush coalesces them per product and applies
+// them in one UPDATE, so stores never contend on the products row and a crash can't lose a committed delta.
+@Component
+public class GlobalStockAggregator {
+
+    private static final Logger logger = LoggerFactory.getLogger(GlobalStockAggregator.class);
+
+    private final ProductRepository productRepository;
+    private final PendingStockDeltaRepository pendingStockDeltaRepository;
+    private final OutboxPublisher outboxPublisher;
+    private final TransactionTemplate transactionTemplate;
+
+    public GlobalStockAggregator(ProductRepository productRepository,
+                                 PendingStockDeltaRepository pendingStockDeltaRepository,
+                                 OutboxPublisher outboxPublisher,
+                                 PlatformTransactionManager transactionManager) {
+        this.productRepository = productRepository;
+        this.pendingStockDeltaRepository = pendingStockDeltaRepository;
+        this.outboxPublisher = outboxPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // Joins the caller's transaction, so the delta commits or rolls back with the location change
+    public void record(Long productId, int delta) {
+        pendingStockDeltaRepository.save(new PendingStockDelta(productId, delta));
+    }
+
+    @Scheduled(fixedDelayString = "${smartstock.inventory.aggregate-flush-ms:500}", initialDelayString = "${smartstock.inventory.aggregate-flush-ms:500}")
+    public void flush() {
+        for (Long productId : pendingStockDeltaRepository.findPendingProductIds()) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> apply(productId));
+            } catch (RuntimeException ex) {
+                // The rows stay in the table for the next flush
+                logger.warn("Failed to flush global stock for product " + productId + ": " + ex.getMessage());
+            }
+        }
+    }
+
+    // Only the rows locked here are deleted: one committed after the lock was taken waits for the next flush
+    private void apply(Long productId) {
+        List<PendingStockDelta> rows = pendingStockDeltaRepository.lockByProductId(productId);
+        if (rows.isEmpty()) {
+            return; // another node's flush has them
+        }
+        long delta = 0;
+        for (PendingStockDelta row : rows) {
+            delta += row.getDelta();
+        }
+        pendingStockDeltaRepository.deleteAllInBatch(rows);
+        if (delta == 0) {
+            return;
+        }
+        productRepository.adjustCurrentStock(productId, Math.toIntExact(delta));
+        outboxPublisher.productStockAdjusted(productId, delta);
+        long applied = delta;
+        productRepository.findById(productId).ifPresent(product -> publishExceptionChange(product, applied));
+    }
+
+    // The flush is the only writer of currentStock after creation, so comparing the state before and
+    // after this delta catches every move onto, off or between the exception lists
+    private void publishExceptionChange(Product product, long delta) {
+        int reorderPoint = product.getReorderPoint();
+        StockExceptionType before = StockExceptionType.of(Math.toIntExact(product.getCurrentStock() - delta), reorderPoint);
+        StockExceptionType after = StockExceptionType.of(product.getCurrentStock(), reorderPoint);
+        if (before != after) {
+            outboxPublisher.stockExceptionChanged(product, before, after);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.kobia.smartstock.service;
+
+import com.kobia.smartstock.entity.Location;
+import com.kobia.smartstock.entity.LocationStock;
+import com.kobia.smartstock.entity.Product;
+import com.kobia.smartstock.repository.LocationRepository;
+import com.kobia.smartstock.repository.LocationStockRepository;
+import com.kobia.smartstock.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Service
+public class LocationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocationService.class);
+
+    private final LocationRepository locationRepository;
+    private final LocationStockRepository locationStockRepository;
+    private final ProductRepository productRepository;
+    private final TransactionTemplate newTransaction;
+    private final String defaultLocationCode;
+
+    public LocationService(LocationRepository locationRepository,
+                           LocationStockRepository locationStockRepository,
+                           ProductRepository productRepository,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${smartstock.inventory.default-location:MAIN}") String defaultLocationCode) {
+        this.locationRepository = locationRepository;
+        this.locationStockRepository = locationStockRepository;
+        this.productRepository = productRepository;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.defaultLocationCode = defaultLocationCode;
+    }
+
+    // Requests that don't name a location act on the default one, so existing tills keep working
+    public Location resolve(String code) {
+        String effective = (code == null || code.isBlank()) ? defaultLocationCode : code;
+        return locationRepository.findByCode(effective)
+                .orElseThrow(() -> new RuntimeException("Location not found: " + effective));
+    }
+
+    // Creates the (location, product) row on first use so every later change is a single atomic UPDATE.
+    // Runs in its own transaction so a concurrent insert of the same row doesn't poison the caller's.
+    public void ensureStockRow(Location location, Product product) {
+        if (locationStockRepository.existsByLocationIdAndProductId(location.getId(), product.getId())) {
+            return;
+        }
+        try {
+            newTransaction.executeWithoutResult(status -> {
+                LocationStock row = new LocationStock();
+                row.setLocation(locationRepository.getReferenceById(location.getId()));
+                row.setProduct(productRepository.getReferenceById(product.getId()));
+                locationStockRepository.saveAndFlush(row);
+            });
+        } catch (DataIntegrityViolationException ex) {
+            // Another request created it first
+        }
+    }
+
+    // Opening balance for a product created in the caller's transaction
+    public void openStock(Location location, Product product, int quantity) {
+        LocationStock row = new LocationStock();
+        row.setLocation(location);
+        row.setProduct(product);
+        row.setQuantity(quantity);
+        locationStockRepository.save(row);
+    }
+
+    // First start after upgrading: move each product's global stock onto the default location
+    @EventListener(ApplicationReadyEvent.class)
+    public void seedDefaultLocation() {
+        newTransaction.executeWithoutResult(status -> {
+            if (locationRepository.findByCode(defaultLocationCode).isPresent()) {
+                return;
+            }
+            Location location = new Location();
+            location.setCode(defaultLocationCode);
+            location.setName("Main Store");
+            locationRepository.save(location);
+
+            for (Product product : productRepository.findAll()) {
+                LocationStock row = new LocationStock();
+                row.setLocation(location);
+                row.setProduct(product);
+                row.setQuantity(product.getCurrentStock());
+                locationStockRepository.save(row);
+            }
+            logger.info("Created default location " + defaultLocationCode + " and seeded it from global stock");
+        });
+    }
+}
@@ -0,0 +1,161 @@
+package com.kobia.smartstock.service;
+
+import com.kobia.smartstock.entity.Product;
+import com.kobia.smartstock.entity.User;
+import com.kobia.smartstock.repository.StockTransactionRepository;
+import com.kobia.smartstock.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+// Near cache for the two lookups nearly every request makes: product by SKU and user by username. Entries
+// are shared between requests, so callers must treat them as read-only. They are loaded through an
+// EntityManager of the cache's own that is closed straight away, never through the calling request's
+// persistence context: an instance managed there would be flushed with that request's changes, and lazily
+// initialised or dirty-checked from whichever thread picked it up next. Anything that
+// changes a user goes through the repository and then calls invalidateUser, which evicts the entry at once
+// and again after commit. That only reaches this node's cache, so:
+// - Cached products are for their identity (id, SKU, name, price), which doesn't change after creation.
+//   currentStock and stockShards are left as they were at load time; StockEscrowService and the
+//   availability queries read them from the tables, so stock movements never need to evict anything.
+// - Token versions (see JwtAuthenticationFilter) are cached separately for only token-version-ttl-seconds,
+//   and every cached user is checked against its token version. Approving a user or changing their
+//   permissions bumps the version and declining deletes them, so other nodes drop the stale entry within
+//   token-version-ttl-seconds instead of serving it until it expires.
+@Service
+public class LookupCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(LookupCache.class);
+
+    private final UserRepository userRepository;
+    private final StockTransactionRepository transactionRepository;
+    private final EntityManagerFactory entityManagerFactory;
+    private final TinyLfuCache<String, Product> products;
+    private final TinyLfuCache<String, User> users;
+    private final TinyLfuCache<String, Integer> tokenVersions;
+    private final int warmTopN;
+    private final int warmHistoryDays;
+
+    public LookupCache(UserRepository userRepository,
+                       StockTransactionRepository transactionRepository, EntityManagerFactory entityManagerFactory,
+                       @Value("${smartstock.cache.products.capacity:10000}") int productCapacity,
+                       @Value("${smartstock.cache.users.capacity:1000}") int userCapacity,
+                       @Value("${smartstock.cache.expire-after-write-seconds:600}") long expireAfterWriteSeconds,
+                       @Value("${smartstock.cache.token-version-ttl-seconds:30}") long tokenVersionTtlSeconds,
+                       @Value("${smartstock.cache.warm-top-n:500}") int warmTopN,
+                       @Value("${smartstock.cache.warm-history-days:30}") int warmHistoryDays) {
+        this.userRepository = userRepository;
+        this.transactionRepository = transactionRepository;
+        this.entityManagerFactory = entityManagerFactory;
+        long expireAfterWriteNanos = TimeUnit.SECONDS.toNanos(expireAfterWriteSeconds);
+        this.products = new TinyLfuCache<>(productCapacity, expireAfterWriteNanos);
+        this.users = new TinyLfuCache<>(userCapacity, expireAfterWriteNanos);
+        this.tokenVersions = new TinyLfuCache<>(userCapacity, TimeUnit.SECONDS.toNanos(tokenVersionTtlSeconds));
+        this.warmTopN = warmTopN;
+        this.warmHistoryDays = warmHistoryDays;
+    }
+
+    public Optional<Product> product(String sku) {
+        return Optional.ofNullable(products.get(sku, this::loadProduct));
+    }
+
+    // Empty once the user has been deleted, on any node
+    public Optional<User> user(String username) {
+        User user = users.get(username, this::loadUser);
+        if (user == null) {
+            return Optional.empty();
+        }
+        // A version behind the cached user's is just the version cache lagging this node's own write
+        Integer version = tokenVersion(username).orElse(null);
+        if (version == null || version > user.getTokenVersion()) {
+            users.invalidate(username);
+            user = loadUser(username);
+        }
+        return Optional.ofNullable(user);
+    }
+
+    // Empty once the user has been deleted
+    public Optional<Integer> tokenVersion(String username) {
+        return Optional.ofNullable(tokenVersions.get(username, key -> userRepository.findTokenVersion(key).orElse(null)));
+    }
+
+    public void invalidateUser(String username) {
+        invalidate(users, username);
+        invalidate(tokenVersions, username);
+    }
+
+    // Evicting only before commit would let a concurrent read reload the old row; evicting only after would
+    // leave the old entry visible for the rest of the transaction
+    private static void invalidate(TinyLfuCache<String, ?> cache, String key) {
+        cache.invalidate(key);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() { cache.invalidate(key); }
+            });
+        }
+    }
+
+    // The best sellers are the SKUs the tills will ask for first, so load them before traffic arrives
+    @EventListener(ApplicationReadyEvent.class)
+    public void warm() {
+        if (warmTopN <= 0) {
+            return;
+        }
+        List<Long> ids = transactionRepository.findTopSellingProductIds(
+                LocalDateTime.now().minusDays(warmHistoryDays), Limit.of(warmTopN));
+        List<Product> bestSellers = detached(entityManager -> entityManager
+                .createQuery("select p from Product p where p.id in :ids", Product.class)
+                .setParameter("ids", ids)
+                .getResultList());
+        bestSellers.forEach(product -> products.put(product.getSku(), product));
+        if (!bestSellers.isEmpty()) {
+            logger.info("Warmed product cache with " + bestSellers.size() + " best-selling SKUs");
+        }
+    }
+
+    private Product loadProduct(String sku) {
+        return detached(entityManager -> entityManager
+                .createQuery("select p from Product p where p.sku = :sku", Product.class)
+                .setParameter("sku", sku)
+                .getResultStream().findFirst().orElse(null));
+    }
+
+    private User loadUser(String username) {
+        return detached(entityManager -> entityManager
+                .createQuery("select u from User u where u.username = :username", User.class)
+                .setParameter("username", username)
+                .getResultStream().findFirst().orElse(null));
+    }
+
+    // Everything loaded is detached by the time it is returned
+    private <T> T detached(Function<EntityManager, T> query) {
+        try (EntityManager entityManager = entityManagerFactory.createEntityManager()) {
+            return query.apply(entityManager);
+        }
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("products", products.snapshot());
+        snapshot.put("users", users.snapshot());
+        snapshot.put("tokenVersions", tokenVersions.snapshot());
+        return snapshot;
+    }
+}
@@ -0,0 +1,121 @@
+package com.kobia.smartstock.service;
+
+import com.kobia.smartstock.entity.OutboxEvent;
+import com.kobia.smartstock.entity.Product;
+import com.kobia.smartstock.repository.OutboxEventRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Writes outbox events. Every publish method requires the caller's transaction, so an event exists
+// exactly when the change it describes has committed.
+@Service
+public class OutboxPublisher {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxPublisher.class);
+
+    private static final String INSERT_SQL = "INSERT INTO outbox_events "
+            + "(aggregate_type, aggregate_id, event_type, payload, created_at) VALUES (?, ?, ?, ?, ?)";
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final JsonMapper jsonMapper;
+    private final int retentionDays;
+
+    public OutboxPublisher(OutboxEventRepository outboxEventRepository, JdbcTemplate jdbcTemplate, JsonMapper jsonMapper,
+                           @Value("${smartstock.outbox.retention-days:7}") int retentionDays) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.jsonMapper = jsonMapper;
+        this.retentionDays = retentionDays;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void productUpserted(Product product) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("productId", product.getId());
+        payload.put("sku", product.getSku());
+        payload.put("name", product.getName());
+        payload.put("category", product.getCategory());
+        payload.put("unitPrice", product.getUnitPrice());
+        payload.put("currentStock", product.getCurrentStock());
+        payload.put("reorderPoint", product.getReorderPoint());
+        publish("PRODUCT", product.getId(), "PRODUCT_UPSERTED", payload);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void productStockAdjusted(Long productId, long delta) {
+        publish("PRODUCT", productId, "PRODUCT_STOCK_ADJUSTED", Map.of("productId", productId, "delta", delta));
+    }
+
+    // A product moved between exception lists (LOW, ZERO, NEGATIVE, or null for healthy)
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void stockExceptionChanged(Product product, StockExceptionType from, StockExceptionType to) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("productId", product.getId());
+        payload.put("sku", product.getSku());
+        payload.put("name", product.getName());
+        payload.put("from", from);
+        payload.put("to", to);
+        payload.put("currentStock", product.getCurrentStock());
+        payload.put("reorderPoint", product.getReorderPoint());
+        publish("PRODUCT", product.getId(), "STOCK_EXCEPTION_CHANGED", payload);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void stockRecorded(AuditRecord record) {
+        publish("PRODUCT", record.productId(), "STOCK_RECORDED", stockPayload(record));
+    }
+
+    // Batch variant used by the audit writer, inside the same transaction as its batch insert
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void stockRecorded(List<AuditRecord> records) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_SQL, records, records.size(), (ps, record) -> {
+            ps.setString(1, "PRODUCT");
+            ps.setLong(2, record.productId());
+            ps.setString(3, "STOCK_RECORDED");
+            ps.setString(4, jsonMapper.writeValueAsString(stockPayload(record)));
+            ps.setTimestamp(5, now);
+        });
+    }
+
+    private void publish(String aggregateType, Long aggregateId, String eventType, Map<String, Object> payload) {
+        OutboxEvent event = new OutboxEvent();
+        event.setAggregateType(aggregateType);
+        event.setAggregateId(aggregateId);
+        event.setEventType(eventType);
+        event.setPayload(jsonMapper.writeValueAsString(payload));
+        outboxEventRepository.save(event);
+    }
+
+    private static Map<String, Object> stockPayload(AuditRecord record) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("productId", record.productId());
+        payload.put("locationId", record.locationId());
+        payload.put("transactionType", record.transactionType());
+        payload.put("quantity", record.quantity());
+        payload.put("transactionDate", record.transactionDate().toString());
+        return payload;
+    }
+
+    @Scheduled(cron = "${smartstock.outbox.purge-cron:0 30 3 * * *}")
+    public void purgeExpired() {
+        int purged = outboxEventRepository.deleteCreatedBefore(LocalDateTime.now().minusDays(retentionDays));
+        if (purged > 0) {
+            logger.info("Purged " + purged + " outbox events older than " + retentionDays + " days");
+        }
+    }
+}
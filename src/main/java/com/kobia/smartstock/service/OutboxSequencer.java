@@ -0,0 +1,62 @@
+package com.kobia.smartstock.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+// Gives committed outbox events their feed position (seq). Only committed rows are visible here, and
+// batches are numbered one at a time under the outbox_sequence row lock, so a long transaction's events
+// simply get a later seq when it commits instead of being skipped. Nodes take turns on the lock.
+@Component
+public class OutboxSequencer {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxSequencer.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    public OutboxSequencer(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                           @Value("${smartstock.outbox.sequence-batch-size:5000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${smartstock.outbox.sequence-ms:200}", initialDelayString = "${smartstock.outbox.sequence-ms:200}")
+    public void sequence() {
+        try {
+            Integer numbered;
+            do {
+                numbered = transactionTemplate.execute(status -> sequenceBatch());
+            } while (numbered != null && numbered == batchSize);
+        } catch (RuntimeException ex) {
+            logger.warn("Failed to sequence outbox events: " + ex.getMessage());
+        }
+    }
+
+    // The unsequenced rows are read after the lock is held, so they include everything the previous holder left
+    private int sequenceBatch() {
+        long lastSeq = jdbcTemplate.queryForObject("SELECT last_seq FROM outbox_sequence WHERE id = 1 FOR UPDATE", Long.class);
+        List<Long> ids = jdbcTemplate.queryForList(
+                "SELECT id FROM outbox_events WHERE seq IS NULL ORDER BY id LIMIT ?", Long.class, batchSize);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        long[] next = {lastSeq};
+        jdbcTemplate.batchUpdate("UPDATE outbox_events SET seq = ? WHERE id = ?", ids, ids.size(),
+                (ps, id) -> {
+                    ps.setLong(1, ++next[0]);
+                    ps.setLong(2, id);
+                });
+        jdbcTemplate.update("UPDATE outbox_sequence SET last_seq = ? WHERE id = 1", next[0]);
+        return ids.size();
+    }
+}
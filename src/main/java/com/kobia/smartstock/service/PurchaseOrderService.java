@@ -0,0 +1,124 @@
+package com.kobia.smartstock.service;
+
+import com.kobia.smartstock.dto.ReceiveDeliveryRequest;
+import com.kobia.smartstock.entity.Location;
+import com.kobia.smartstock.entity.Product;
+import com.kobia.smartstock.entity.PurchaseOrder;
+import com.kobia.smartstock.entity.StockTransaction;
+import com.kobia.smartstock.entity.User;
+import com.kobia.smartstock.repository.PurchaseOrderRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Purchase-order workflow. Receiving applies a whole delivery in one transaction: the orders are locked,
+// every line is checked before anything changes, quantities are coalesced per (location, product) into
+// one stock update each, and the RESTOCK audit rows go in as one batch.
+@Service
+public class PurchaseOrderService {
+
+    private final PurchaseOrderRepository purchaseOrderRepository;
+    private final LocationService locationService;
+    private final StockEscrowService stockEscrowService;
+    private final GlobalStockAggregator globalStockAggregator;
+    private final AuditLogWriter auditLogWriter;
+
+    public PurchaseOrderService(PurchaseOrderRepository purchaseOrderRepository,
+                                LocationService locationService,
+                                StockEscrowService stockEscrowService,
+                                GlobalStockAggregator globalStockAggregator,
+                                AuditLogWriter auditLogWriter) {
+        this.purchaseOrderRepository = purchaseOrderRepository;
+        this.locationService = locationService;
+        this.stockEscrowService = stockEscrowService;
+        this.globalStockAggregator = globalStockAggregator;
+        this.auditLogWriter = auditLogWriter;
+    }
+
+    // False if the order is not waiting for approval
+    public boolean approve(Long id, User approver) {
+        return purchaseOrderRepository.approveIfPending(id, approver, LocalDateTime.now()) == 1;
+    }
+
+    // Throws IllegalArgumentException, with nothing applied, if any line can't be received
+    @Transactional
+    public List<PurchaseOrder> receive(ReceiveDeliveryRequest request, User user) {
+        if (request.lines() == null || request.lines().isEmpty()) {
+            throw new IllegalArgumentException("A delivery needs at least one line.");
+        }
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        for (ReceiveDeliveryRequest.Line line : request.lines()) {
+            if (line.purchaseOrderId() == null || line.quantity() == null || line.quantity() <= 0) {
+                throw new IllegalArgumentException("Each line needs a purchaseOrderId and a positive quantity.");
+            }
+            quantities.merge(line.purchaseOrderId(), line.quantity(), Integer::sum);
+        }
+
+        List<PurchaseOrder> orders = purchaseOrderRepository.lockAllById(quantities.keySet());
+        if (orders.size() != quantities.size()) {
+            List<Long> missing = new ArrayList<>(quantities.keySet());
+            orders.forEach(po -> missing.remove(po.getId()));
+            throw new IllegalArgumentException("Purchase order not found: " + missing);
+        }
+        for (PurchaseOrder po : orders) {
+            if (!po.getStatus().equals("APPROVED") && !po.getStatus().equals("PARTIALLY_DELIVERED")) {
+                throw new IllegalArgumentException("Purchase order " + po.getId() + " is " + po.getStatus()
+                        + " and can't be received.");
+            }
+            int outstanding = po.getQuantityOrdered() - po.getQuantityReceived();
+            if (quantities.get(po.getId()) > outstanding) {
+                throw new IllegalArgumentException("Purchase order " + po.getId() + " has only " + outstanding
+                        + " units outstanding.");
+            }
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        Location defaultLocation = null;
+        Map<StockKey, Integer> restock = new LinkedHashMap<>();
+        List<StockTransaction> audit = new ArrayList<>(orders.size());
+        for (PurchaseOrder po : orders) {
+            int quantity = quantities.get(po.getId());
+            po.setQuantityReceived(po.getQuantityReceived() + quantity);
+            po.setStatus(po.getQuantityReceived() >= po.getQuantityOrdered() ? "DELIVERED" : "PARTIALLY_DELIVERED");
+            po.setReceivedAt(now);
+
+            Location location = po.getLocation();
+            if (location == null) {
+                // Orders raised before locations existed are received at the default one
+                if (defaultLocation == null) {
+                    defaultLocation = locationService.resolve(null);
+                }
+                location = defaultLocation;
+            }
+            restock.merge(new StockKey(location, po.getProduct()), quantity, Integer::sum);
+
+            StockTransaction transaction = new StockTransaction();
+            transaction.setProduct(po.getProduct());
+            transaction.setLocation(location);
+            transaction.setHandledBy(user);
+            transaction.setTransactionType("RESTOCK");
+            transaction.setQuantity(quantity);
+            transaction.setNotes("PO #" + po.getId() + " received (" + po.getQuantityReceived() + "/"
+                    + po.getQuantityOrdered() + ")" + (request.notes() != null ? ": " + request.notes() : ""));
+            audit.add(transaction);
+        }
+
+        for (Map.Entry<StockKey, Integer> entry : restock.entrySet()) {
+            Location location = entry.getKey().location();
+            Product product = entry.getKey().product();
+            locationService.ensureStockRow(location, product);
+            stockEscrowService.put(location, product, entry.getValue());
+            globalStockAggregator.record(product.getId(), entry.getValue());
+        }
+        auditLogWriter.recordAll(audit);
+        return orders;
+    }
+
+    private record StockKey(Location location, Product product) {
+    }
+}
@@ -0,0 +1,168 @@
+package com.kobia.smartstock.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.RecursiveTask;
+
+// Monte Carlo search for a (reorder point, order quantity) policy. Demand paths are bootstrapped from a
+// product's daily sales history. Each trial gets its own seed and regenerates its path whenever a candidate
+// policy replays it (common random numbers), so candidates differ only by the policy, not by luck, and a
+// product costs one long per trial instead of a trials * horizon array. Each order quantity
+// around the EOQ is its own fork/join subtask, which binary-searches the lowest reorder point whose fill
+// rate meets the target; the cheapest of those wins.
+// Inventory is reviewed at the end of each day, unmet demand is lost, and an order placed on day d is on the
+// shelf from day d + lead time + 1, so it has to ride out lead time days of demand.
+final class ReorderSimulation extends RecursiveTask<ReorderSimulation.Policy> {
+
+    private static final double[] EOQ_MULTIPLES = {0.25, 0.5, 0.75, 1, 1.5, 2, 3};
+
+    record Parameters(int leadTimeDays, int horizonDays, int trials, double targetFillRate,
+                      double holdingCostPerUnitDay, double orderCost, long seed) {
+    }
+
+    // costPerDay is holding plus ordering cost; meetsTarget is false when even the highest reorder point tried falls short
+    record Policy(int reorderPoint, int orderQuantity, double fillRate, double costPerDay, boolean meetsTarget) {
+    }
+
+    private final int[] history;
+    private final Parameters parameters;
+
+    ReorderSimulation(int[] history, Parameters parameters) {
+        this.history = history;
+        this.parameters = parameters;
+    }
+
+    @Override
+    protected Policy compute() {
+        double mean = 0;
+        int max = 0;
+        for (int demand : history) {
+            mean += demand;
+            max = Math.max(max, demand);
+        }
+        if (max == 0) {
+            return new Policy(0, 0, 1.0, 0, true); // never sold: nothing to stock
+        }
+        mean /= history.length;
+
+        long[] trialSeeds = trialSeeds();
+        int highestReorderPoint = max * (parameters.leadTimeDays() + 2);
+        List<QuantitySearch> searches = new ArrayList<>();
+        for (int orderQuantity : orderQuantities(mean)) {
+            searches.add(new QuantitySearch(trialSeeds, orderQuantity, highestReorderPoint));
+        }
+        invokeAll(searches);
+
+        Policy best = null;
+        for (QuantitySearch search : searches) {
+            Policy candidate = search.join();
+            if (best == null || better(candidate, best)) {
+                best = candidate;
+            }
+        }
+        return best;
+    }
+
+    private static boolean better(Policy candidate, Policy best) {
+        if (candidate.meetsTarget() != best.meetsTarget()) {
+            return candidate.meetsTarget();
+        }
+        return candidate.meetsTarget() ? candidate.costPerDay() < best.costPerDay() : candidate.fillRate() > best.fillRate();
+    }
+
+    // Drawn from one generator rather than derived from the trial number, so the trials' streams don't overlap
+    private long[] trialSeeds() {
+        SplittableRandom random = new SplittableRandom(parameters.seed());
+        long[] seeds = new long[parameters.trials()];
+        for (int i = 0; i < seeds.length; i++) {
+            seeds[i] = random.nextLong();
+        }
+        return seeds;
+    }
+
+    private int[] orderQuantities(double meanDailyDemand) {
+        double eoq = parameters.holdingCostPerUnitDay() > 0
+                ? Math.sqrt(2 * meanDailyDemand * parameters.orderCost() / parameters.holdingCostPerUnitDay())
+                : meanDailyDemand * parameters.horizonDays();
+        return Arrays.stream(EOQ_MULTIPLES)
+                .mapToInt(multiple -> (int) Math.max(1, Math.round(multiple * eoq)))
+                .distinct()
+                .toArray();
+    }
+
+    // Fill rate only grows with the reorder point on a fixed set of paths, so binary search finds the cheapest one that meets the target
+    private final class QuantitySearch extends RecursiveTask<Policy> {
+
+        private final long[] trialSeeds;
+        private final int orderQuantity;
+        private final int highestReorderPoint;
+
+        QuantitySearch(long[] trialSeeds, int orderQuantity, int highestReorderPoint) {
+            this.trialSeeds = trialSeeds;
+            this.orderQuantity = orderQuantity;
+            this.highestReorderPoint = highestReorderPoint;
+        }
+
+        @Override
+        protected Policy compute() {
+            Policy found = simulate(trialSeeds, highestReorderPoint, orderQuantity);
+            if (!found.meetsTarget()) {
+                return found;
+            }
+            int low = 0;
+            int high = highestReorderPoint;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                Policy policy = simulate(trialSeeds, middle, orderQuantity);
+                if (policy.meetsTarget()) {
+                    found = policy;
+                    high = middle;
+                } else {
+                    low = middle + 1;
+                }
+            }
+            return found;
+        }
+    }
+
+    Policy simulate(long[] trialSeeds, int reorderPoint, int orderQuantity) {
+        int leadTime = parameters.leadTimeDays();
+        int horizon = parameters.horizonDays();
+        int[] pipeline = new int[leadTime + 2]; // arrivals by day, indexed modulo leadTime + 2
+        long demanded = 0;
+        long filled = 0;
+        long heldUnitDays = 0;
+        long orders = 0;
+        for (long trialSeed : trialSeeds) {
+            SplittableRandom random = new SplittableRandom(trialSeed);
+            Arrays.fill(pipeline, 0);
+            long onHand = reorderPoint + orderQuantity;
+            long onOrder = 0;
+            for (int day = 0; day < horizon; day++) {
+                int slot = day % pipeline.length;
+                onHand += pipeline[slot];
+                onOrder -= pipeline[slot];
+                pipeline[slot] = 0;
+
+                int demand = history[random.nextInt(history.length)];
+                long sold = Math.min(onHand, demand);
+                onHand -= sold;
+                demanded += demand;
+                filled += sold;
+                heldUnitDays += onHand;
+
+                while (onHand + onOrder <= reorderPoint) {
+                    pipeline[(day + leadTime + 1) % pipeline.length] += orderQuantity;
+                    onOrder += orderQuantity;
+                    orders++;
+                }
+            }
+        }
+        double fillRate = demanded == 0 ? 1.0 : (double) filled / demanded;
+        double days = (double) parameters.trials() * horizon;
+        double costPerDay = (heldUnitDays * parameters.holdingCostPerUnitDay() + orders * parameters.orderCost()) / days;
+        return new Policy(reorderPoint, orderQuantity, fillRate, costPerDay, fillRate >= parameters.targetFillRate());
+    }
+}
@@ -0,0 +1,258 @@
+package com.kobia.smartstock.service;
+
+import com.kobia.smartstock.dto.ReorderPolicyDTO;
+import com.kobia.smartstock.dto.ReorderSimulationJobDTO;
+import com.kobia.smartstock.dto.ReorderSimulationRequest;
+import com.kobia.smartstock.entity.Product;
+import com.kobia.smartstock.repository.ProductRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Suggests reorder points and order quantities from the SALE ledger. Daily demand per product is read in
+// one grouped query into an int[] per product on the caller's thread; the simulation itself runs as a job on
+// a dedicated fork/join pool (products split recursively, order-quantity candidates forked within each
+// product), so a catalog-wide run neither ties up a request thread nor competes for the common pool.
+// At most maxRunningJobs run at once; the last RETAINED_JOBS are kept for polling.
+@Service
+public class ReorderSimulationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReorderSimulationService.class);
+    private static final int RETAINED_JOBS = 20;
+
+    private final ProductRepository productRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ForkJoinPool pool;
+    private final int maxRunningJobs;
+    private final Map<String, Job> jobs = new LinkedHashMap<>();
+    private int runningJobs;
+
+    public ReorderSimulationService(ProductRepository productRepository, JdbcTemplate jdbcTemplate,
+                                    @Value("${smartstock.reorder-simulation.parallelism:2}") int parallelism,
+                                    @Value("${smartstock.reorder-simulation.max-running-jobs:1}") int maxRunningJobs) {
+        this.productRepository = productRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.pool = new ForkJoinPool(Math.max(1, parallelism));
+        this.maxRunningJobs = Math.max(1, maxRunningJobs);
+    }
+
+    // Throws IllegalArgumentException for out-of-range parameters or unknown SKUs, and IllegalStateException
+    // when maxRunningJobs are already running
+    public ReorderSimulationJobDTO submit(ReorderSimulationRequest request) {
+        double serviceLevel = orDefault(request.serviceLevel(), 0.95);
+        int leadTimeDays = orDefault(request.leadTimeDays(), 7);
+        int historyDays = orDefault(request.historyDays(), 180);
+        int horizonDays = orDefault(request.horizonDays(), 365);
+        int trials = orDefault(request.trials(), 500);
+        double orderCost = orDefault(request.orderCost(), 50.0);
+        double holdingRate = orDefault(request.annualHoldingRate(), 0.25);
+        if (serviceLevel <= 0 || serviceLevel >= 1) {
+            throw new IllegalArgumentException("serviceLevel must be between 0 and 1, e.g. 0.95");
+        }
+        if (leadTimeDays < 1 || leadTimeDays > 365 || historyDays < 7 || historyDays > 3650
+                || horizonDays < 30 || horizonDays > 3650 || trials < 10 || trials > 10_000) {
+            throw new IllegalArgumentException("Expected leadTimeDays 1-365, historyDays 7-3650, horizonDays 30-3650 and trials 10-10000");
+        }
+        if (orderCost < 0 || holdingRate < 0) {
+            throw new IllegalArgumentException("orderCost and annualHoldingRate can't be negative");
+        }
+
+        List<Product> products = resolveProducts(request.skus());
+        LocalDate today = LocalDate.now();
+        LocalDate firstDay = today.minusDays(historyDays);
+        Map<Long, int[]> demand = loadDailyDemand(products, firstDay, historyDays);
+
+        Job job;
+        synchronized (jobs) {
+            if (runningJobs >= maxRunningJobs) {
+                throw new IllegalStateException("A reorder simulation is already running; try again when it finishes.");
+            }
+            runningJobs++;
+            job = new Job(UUID.randomUUID().toString(), LocalDateTime.now());
+            jobs.put(job.id, job);
+            Iterator<Job> oldest = jobs.values().iterator();
+            while (jobs.size() > RETAINED_JOBS && oldest.hasNext()) {
+                if (oldest.next().result.isDone()) {
+                    oldest.remove();
+                }
+            }
+        }
+        CompletableFuture.supplyAsync(() -> simulate(products, demand, leadTimeDays, horizonDays, trials,
+                        serviceLevel, orderCost, holdingRate), pool)
+                .whenComplete((policies, failure) -> {
+                    synchronized (jobs) {
+                        runningJobs--;
+                    }
+                    job.finishedAt = LocalDateTime.now();
+                    if (failure != null) {
+                        Throwable cause = failure.getCause() != null ? failure.getCause() : failure;
+                        logger.warn("Reorder simulation " + job.id + " failed: " + cause.getMessage());
+                        job.result.completeExceptionally(cause);
+                    } else {
+                        job.result.complete(policies);
+                    }
+                });
+        return job.toDTO();
+    }
+
+    public Optional<ReorderSimulationJobDTO> job(String id) {
+        synchronized (jobs) {
+            return Optional.ofNullable(jobs.get(id)).map(Job::toDTO);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    private List<ReorderPolicyDTO> simulate(List<Product> products, Map<Long, int[]> demand, int leadTimeDays,
+                                            int horizonDays, int trials, double serviceLevel, double orderCost,
+                                            double holdingRate) {
+        long start = System.nanoTime();
+        ReorderSimulation.Policy[] policies = new ReorderSimulation.Policy[products.size()];
+        ReorderSimulation[] simulations = new ReorderSimulation[products.size()];
+        for (int i = 0; i < products.size(); i++) {
+            Product product = products.get(i);
+            double unitPrice = product.getUnitPrice() != null ? product.getUnitPrice() : 0;
+            simulations[i] = new ReorderSimulation(demand.get(product.getId()), new ReorderSimulation.Parameters(
+                    leadTimeDays, horizonDays, trials, serviceLevel, unitPrice * holdingRate / 365, orderCost,
+                    product.getId() * 0x9E3779B97F4A7C15L));
+        }
+        new Catalog(simulations, policies, 0, simulations.length).invoke();
+        logger.info("Simulated reorder policies for " + products.size() + " products in "
+                + (System.nanoTime() - start) / 1_000_000 + " ms");
+
+        List<ReorderPolicyDTO> results = new ArrayList<>(products.size());
+        for (int i = 0; i < products.size(); i++) {
+            Product product = products.get(i);
+            ReorderSimulation.Policy policy = policies[i];
+            int[] history = demand.get(product.getId());
+            long sold = 0;
+            for (int day : history) {
+                sold += day;
+            }
+            results.add(new ReorderPolicyDTO(product.getSku(), product.getName(), (double) sold / history.length,
+                    product.getReorderPoint(), policy.reorderPoint(), policy.orderQuantity(), policy.fillRate(),
+                    policy.costPerDay(), policy.meetsTarget()));
+        }
+        return results;
+    }
+
+    private List<Product> resolveProducts(List<String> skus) {
+        if (skus == null || skus.isEmpty()) {
+            return productRepository.findAll();
+        }
+        List<Product> products = new ArrayList<>(skus.size());
+        for (String sku : skus) {
+            products.add(productRepository.findBySku(sku)
+                    .orElseThrow(() -> new IllegalArgumentException("Product not found: " + sku)));
+        }
+        return products;
+    }
+
+    // Units sold per product per day, oldest day first; days without sales stay 0
+    private Map<Long, int[]> loadDailyDemand(List<Product> products, LocalDate firstDay, int days) {
+        Map<Long, int[]> demand = new HashMap<>(products.size() * 2);
+        for (Product product : products) {
+            demand.put(product.getId(), new int[days]);
+        }
+        if (products.isEmpty()) {
+            return demand;
+        }
+        String productFilter = products.size() > 1000 ? ""
+                : " AND product_id IN (" + String.join(",", Collections.nCopies(products.size(), "?")) + ")";
+        List<Object> args = new ArrayList<>(products.size() + 1);
+        args.add(Date.valueOf(firstDay));
+        if (!productFilter.isEmpty()) {
+            products.forEach(product -> args.add(product.getId()));
+        }
+        jdbcTemplate.query("SELECT product_id, CAST(transaction_date AS DATE) AS sale_day, -SUM(quantity) AS sold "
+                        + "FROM stock_transactions WHERE transaction_type = 'SALE' AND transaction_date >= ?" + productFilter
+                        + " GROUP BY product_id, CAST(transaction_date AS DATE)",
+                rs -> {
+                    int[] series = demand.get(rs.getLong("product_id"));
+                    long day = ChronoUnit.DAYS.between(firstDay, rs.getDate("sale_day").toLocalDate());
+                    if (series != null && day >= 0 && day < days) {
+                        series[(int) day] = Math.max(0, rs.getInt("sold"));
+                    }
+                },
+                args.toArray());
+        return demand;
+    }
+
+    private static <T> T orDefault(T value, T fallback) {
+        return value != null ? value : fallback;
+    }
+
+    private static final class Job {
+        private final String id;
+        private final LocalDateTime submittedAt;
+        private final CompletableFuture<List<ReorderPolicyDTO>> result = new CompletableFuture<>();
+        private volatile LocalDateTime finishedAt;
+
+        Job(String id, LocalDateTime submittedAt) {
+            this.id = id;
+            this.submittedAt = submittedAt;
+        }
+
+        ReorderSimulationJobDTO toDTO() {
+            if (!result.isDone()) {
+                return new ReorderSimulationJobDTO(id, "RUNNING", submittedAt, null, null, null);
+            }
+            if (result.isCompletedExceptionally()) {
+                String error = result.exceptionNow().getMessage();
+                return new ReorderSimulationJobDTO(id, "FAILED", submittedAt, finishedAt, error, null);
+            }
+            return new ReorderSimulationJobDTO(id, "DONE", submittedAt, finishedAt, null, result.resultNow());
+        }
+    }
+
+    // Splits the catalog in halves until single products remain, so idle workers steal whole ranges
+    private static final class Catalog extends RecursiveAction {
+
+        private final ReorderSimulation[] simulations;
+        private final ReorderSimulation.Policy[] policies;
+        private final int from;
+        private final int to;
+
+        Catalog(ReorderSimulation[] simulations, ReorderSimulation.Policy[] policies, int from, int to) {
+            this.simulations = simulations;
+            this.policies = policies;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= 1) {
+                if (from < to) {
+                    policies[from] = simulations[from].invoke();
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new Catalog(simulations, policies, from, middle), new Catalog(simulations, policies, middle, to));
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.kobia.smartstock.service;
+
+import com.kobia.smartstock.entity.Location;
+import com.kobia.smartstock.entity.LocationStock;
+import com.kobia.smartstock.entity.Product;
+import com.kobia.smartstock.entity.StockShard;
+import com.kobia.smartstock.repository.LocationStockRepository;
+import com.kobia.smartstock.repository.ProductRepository;
+import com.kobia.smartstock.repository.StockShardRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Split-counter escrow for hot SKUs. Stock at a location is split across N shard rows; a sale
+// decrements one random shard with the usual conditional UPDATE, so N tills can sell the same
+// product without queueing on one row lock. When the chosen shard can't cover a sale the other
+// shards are tried the same way; only if none can is the location's row and all its shards locked
+// and the stock pooled and spread evenly again (taking the sale out first), so a sale only fails
+// when the location as a whole is short.
+// Every sale and restock goes through take and put, escrowed or not. They route by the committed shard
+// count rather than the caller's copy of the product, which may come from a node's LookupCache and predate
+// an escrow change made on another node.
+@Service
+public class StockEscrowService {
+
+    public static final int MAX_SHARDS = 64;
+
+    private final LocationStockRepository locationStockRepository;
+    private final StockShardRepository stockShardRepository;
+    private final ProductRepository productRepository;
+
+    public StockEscrowService(LocationStockRepository locationStockRepository,
+                              StockShardRepository stockShardRepository,
+                              ProductRepository productRepository) {
+        this.locationStockRepository = locationStockRepository;
+        this.stockShardRepository = stockShardRepository;
+        this.productRepository = productRepository;
+    }
+
+    public static boolean isEscrowed(Product product) {
+        return product.getStockShards() != null && product.getStockShards() > 0;
+    }
+
+    // Turns escrow on (shards > 0), off (0), or changes the shard count, re-splitting every location's stock.
+    // The product is only read for its id; reload it afterwards to see the new shard count.
+    @Transactional
+    public void configure(Product product, int shards) {
+        if (shards < 0 || shards > MAX_SHARDS) {
+            throw new IllegalArgumentException("Shard count must be between 0 and " + MAX_SHARDS);
+        }
+        for (LocationStock row : locationStockRepository.lockByProductId(product.getId())) {
+            Long locationId = row.getLocation().getId();
+            int total = row.getQuantity() + sum(stockShardRepository.lockShards(locationId, product.getId()));
+            stockShardRepository.deleteShards(locationId, product.getId());
+            if (shards == 0) {
+                row.setQuantity(total);
+            } else {
+                row.setQuantity(0);
+                spread(row.getLocation(), product, total, shards);
+            }
+        }
+        productRepository.updateStockShards(product.getId(), shards);
+    }
+
+    // Takes quantity from the location's stock in the caller's transaction; false if it doesn't have that many
+    public boolean take(Location location, Product product, int quantity) {
+        int shards = productRepository.findStockShards(product.getId());
+        if (shards == 0) {
+            return locationStockRepository.decrementIfAvailable(location.getId(), product.getId(), quantity) == 1;
+        }
+        int first = ThreadLocalRandom.current().nextInt(shards);
+        for (int i = 0; i < shards; i++) {
+            int shard = (first + i) % shards;
+            if (stockShardRepository.decrementIfAvailable(location.getId(), product.getId(), shard, quantity) == 1) {
+                return true;
+            }
+        }
+        return rebalanceAndTake(location, product, quantity);
+    }
+
+    // Restocks land on a random shard too, or on the location row if this location was never split
+    public void put(Location location, Product product, int quantity) {
+        int shards = productRepository.findStockShards(product.getId());
+        if (shards == 0) {
+            locationStockRepository.adjust(location.getId(), product.getId(), quantity);
+            return;
+        }
+        int shard = ThreadLocalRandom.current().nextInt(shards);
+        if (stockShardRepository.adjust(location.getId(), product.getId(), shard, quantity) == 0) {
+            locationStockRepository.adjust(location.getId(), product.getId(), quantity);
+        }
+    }
+
+    private boolean rebalanceAndTake(Location location, Product product, int quantity) {
+        LocationStock row = locationStockRepository.lockRow(location.getId(), product.getId()).orElse(null);
+        if (row == null) {
+            return false;
+        }
+        List<StockShard> shards = stockShardRepository.lockShards(location.getId(), product.getId());
+        if (shards.isEmpty()) {
+            // Location added after escrow was switched on: plain single-row decrement
+            return locationStockRepository.decrementIfAvailable(location.getId(), product.getId(), quantity) == 1;
+        }
+        int pooled = row.getQuantity() + sum(shards);
+        if (pooled < quantity) {
+            return false;
+        }
+        row.setQuantity(0);
+        int remaining = pooled - quantity;
+        int base = Math.floorDiv(remaining, shards.size());
+        int extra = Math.floorMod(remaining, shards.size());
+        for (int i = 0; i < shards.size(); i++) {
+            shards.get(i).setQuantity(base + (i < extra ? 1 : 0));
+        }
+        return true;
+    }
+
+    private void spread(Location location, Product product, int total, int shards) {
+        int base = Math.floorDiv(total, shards);
+        int extra = Math.floorMod(total, shards);
+        for (int i = 0; i < shards; i++) {
+            StockShard shard = new StockShard();
+            shard.setLocation(location);
+            shard.setProduct(product);
+            shard.setShard(i);
+            shard.setQuantity(base + (i < extra ? 1 : 0));
+            stockShardRepository.save(shard);
+        }
+    }
+
+    private static int sum(List<StockShard> shards) {
+        int total = 0;
+        for (StockShard shard : shards) {
+            total += shard.getQuantity();
+        }
+        return total;
+    }
+}
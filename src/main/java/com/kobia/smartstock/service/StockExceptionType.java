@@ -0,0 +1,21 @@
+package com.kobia.smartstock.service;
+
+// Exception states of a product's chain-wide stock. A product is in at most one; null means healthy.
+// ANOMALY is separate: currentStock plus pending deltas disagreeing with the stock rows, which of() can't
+// see. It is found by reconciling on request, so it has no change events.
+public enum StockExceptionType {
+    NEGATIVE,
+    ZERO,
+    LOW,
+    ANOMALY;
+
+    public static StockExceptionType of(int currentStock, int reorderPoint) {
+        if (currentStock < 0) {
+            return NEGATIVE;
+        }
+        if (currentStock == 0) {
+            return ZERO;
+        }
+        return currentStock <= reorderPoint ? LOW : null;
+    }
+}
@@ -0,0 +1,230 @@
+package com.kobia.smartstock.service;
+
+import com.kobia.smartstock.entity.Location;
+import com.kobia.smartstock.entity.Product;
+import com.kobia.smartstock.entity.StockReservation;
+import com.kobia.smartstock.entity.StockTransaction;
+import com.kobia.smartstock.entity.User;
+import com.kobia.smartstock.repository.StockReservationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+// Time-limited stock holds. Placing a hold takes the quantity out of the location's sellable stock the same
+// way a sale does, so tills and other carts can't sell it; confirming records the sale and lets the global
+// total drop, releasing or expiring puts the quantity back. Product.currentStock therefore still counts
+// held units, and available-to-sell is currentStock minus the active holds.
+// Expiry deadlines live in an in-memory timing wheel filled as holds commit and rebuilt from the table
+// on startup; each fired id is expired with the same conditional status update that confirm and release
+// use, so whichever gets there first wins and the others are no-ops. That is also why confirm and release
+// leave the id in the wheel rather than cancelling it: firing a resolved hold costs one no-op update. The wheel only knows the holds this
+// node took, so a slow sweep of the table expires anything overdue whose node went away.
+@Service
+public class StockReservationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockReservationService.class);
+
+    private final StockReservationRepository reservationRepository;
+    private final StockEscrowService stockEscrowService;
+    private final GlobalStockAggregator globalStockAggregator;
+    private final AuditLogWriter auditLogWriter;
+    private final TransactionTemplate transactionTemplate;
+    private final long tickMillis;
+    private final int defaultTtlSeconds;
+    private final int maxTtlSeconds;
+    private final int sweepBatchSize;
+    private final TimingWheel expiries;
+    private final LongAdder expired = new LongAdder();
+
+    public StockReservationService(StockReservationRepository reservationRepository,
+                                   StockEscrowService stockEscrowService,
+                                   GlobalStockAggregator globalStockAggregator,
+                                   AuditLogWriter auditLogWriter,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${smartstock.reservations.tick-ms:1000}") long tickMillis,
+                                   @Value("${smartstock.reservations.default-ttl-seconds:900}") int defaultTtlSeconds,
+                                   @Value("${smartstock.reservations.max-ttl-seconds:86400}") int maxTtlSeconds,
+                                   @Value("${smartstock.reservations.sweep-batch-size:500}") int sweepBatchSize) {
+        this.reservationRepository = reservationRepository;
+        this.stockEscrowService = stockEscrowService;
+        this.globalStockAggregator = globalStockAggregator;
+        this.auditLogWriter = auditLogWriter;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.tickMillis = tickMillis;
+        this.defaultTtlSeconds = defaultTtlSeconds;
+        this.maxTtlSeconds = maxTtlSeconds;
+        this.sweepBatchSize = sweepBatchSize;
+        this.expiries = new TimingWheel(tickMillis, System.currentTimeMillis());
+    }
+
+    // Returns null when the location doesn't have that many to hold
+    @Transactional
+    public StockReservation reserve(Location location, Product product, User user, int quantity,
+                                    Integer ttlSeconds, String reference) {
+        int ttl = ttlSeconds != null ? ttlSeconds : defaultTtlSeconds;
+        if (ttl <= 0 || ttl > maxTtlSeconds) {
+            throw new IllegalArgumentException("Hold time must be between 1 and " + maxTtlSeconds + " seconds");
+        }
+        if (!stockEscrowService.take(location, product, quantity)) {
+            return null;
+        }
+        StockReservation reservation = new StockReservation();
+        reservation.setProduct(product);
+        reservation.setLocation(location);
+        reservation.setCreatedBy(user);
+        reservation.setQuantity(quantity);
+        reservation.setReference(reference);
+        reservation.setExpiresAt(LocalDateTime.now().plusSeconds(ttl));
+        reservationRepository.save(reservation);
+
+        long id = reservation.getId();
+        long deadline = epochMillis(reservation.getExpiresAt());
+        afterCommit(() -> expiries.schedule(id, deadline));
+        return reservation;
+    }
+
+    // Turns an active hold into a sale; false if it was already confirmed, released or expired
+    @Transactional
+    public boolean confirm(Long id, User user) {
+        StockReservation reservation = find(id);
+        if (reservationRepository.resolve(id, "CONFIRMED", LocalDateTime.now()) == 0) {
+            return false;
+        }
+        globalStockAggregator.record(reservation.getProduct().getId(), -reservation.getQuantity());
+
+        StockTransaction transaction = new StockTransaction();
+        transaction.setProduct(reservation.getProduct());
+        transaction.setLocation(reservation.getLocation());
+        transaction.setHandledBy(user);
+        transaction.setTransactionType("SALE");
+        transaction.setQuantity(-reservation.getQuantity());
+        transaction.setNotes("Reservation #" + id + (reservation.getReference() != null ? " (" + reservation.getReference() + ")" : ""));
+        auditLogWriter.record(transaction);
+        return true;
+    }
+
+    @Transactional
+    public boolean release(Long id) {
+        return returnStock(find(id), "RELEASED");
+    }
+
+    // Available-to-sell for the whole chain, from the stock rows the holds were taken from
+    public Availability availability(Product product) {
+        Object[] sums = reservationRepository.sumSellableAndHeld(product.getId()).get(0);
+        long sellable = ((Number) sums[0]).longValue();
+        long held = ((Number) sums[1]).longValue();
+        return new Availability(sellable + held, held, sellable);
+    }
+
+    public record Availability(long onHand, long held, long availableToSell) {
+    }
+
+    public StockReservation find(Long id) {
+        return reservationRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Reservation not found"));
+    }
+
+    @Scheduled(fixedDelayString = "${smartstock.reservations.tick-ms:1000}")
+    public void expireDue() {
+        for (long id : expiries.advance(System.currentTimeMillis())) {
+            try {
+                expire(id);
+            } catch (RuntimeException ex) {
+                // Try again on the next tick rather than leaving the stock held
+                expiries.schedule(id, System.currentTimeMillis() + tickMillis);
+                logger.warn("Failed to expire reservation " + id + ": " + ex.getMessage());
+            }
+        }
+    }
+
+    // Backstop for holds scheduled on another node that crashed or was scaled away before they fell due.
+    // A grace of a few ticks leaves the live node's wheel to handle its own holds first.
+    @Scheduled(fixedDelayString = "${smartstock.reservations.sweep-ms:60000}",
+            initialDelayString = "${smartstock.reservations.sweep-ms:60000}")
+    public void sweepOverdue() {
+        LocalDateTime overdue = LocalDateTime.now().minusNanos(tickMillis * 5 * 1_000_000);
+        int swept = 0;
+        for (Long id : reservationRepository.findOverdueIds(overdue, Limit.of(sweepBatchSize))) {
+            try {
+                if (expire(id)) {
+                    swept++;
+                }
+            } catch (RuntimeException ex) {
+                logger.warn("Sweep failed to expire reservation " + id + ": " + ex.getMessage());
+            }
+        }
+        if (swept > 0) {
+            logger.info("Sweep expired " + swept + " overdue reservations");
+        }
+    }
+
+    private boolean expire(long id) {
+        Boolean returned = transactionTemplate.execute(status ->
+                reservationRepository.findById(id).map(reservation -> returnStock(reservation, "EXPIRED")).orElse(false));
+        if (Boolean.TRUE.equals(returned)) {
+            expired.increment();
+            return true;
+        }
+        return false;
+    }
+
+    // Holds placed before a restart; anything already past its deadline fires on the first tick
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadActiveHolds() {
+        int loaded = 0;
+        for (Object[] row : reservationRepository.findActiveDeadlines()) {
+            expiries.schedule((Long) row[0], epochMillis((LocalDateTime) row[1]));
+            loaded++;
+        }
+        if (loaded > 0) {
+            logger.info("Scheduled expiry for " + loaded + " active reservations");
+        }
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("scheduledExpiries", expiries.size());
+        snapshot.put("expired", expired.sum());
+        return snapshot;
+    }
+
+    private boolean returnStock(StockReservation reservation, String status) {
+        if (reservationRepository.resolve(reservation.getId(), status, LocalDateTime.now()) == 0) {
+            return false;
+        }
+        Location location = reservation.getLocation();
+        stockEscrowService.put(location, reservation.getProduct(), reservation.getQuantity());
+        return true;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() { action.run(); }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static long epochMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,126 @@
+package com.kobia.smartstock.service;
+
+import java.util.Arrays;
+
+// Hierarchical timing wheel for reservation expiry: 4 levels of 64 slots, so with 1 s ticks it spans
+// about 194 days. Level 0 holds the ids due in the current 64-tick block, one slot per tick; level n holds
+// the ids due later in the current 64^(n+1)-tick block, one slot per 64^n ticks. When the clock enters a
+// new block, that block's slot one level up is cascaded down. Scheduling touches one slot, advancing an
+// idle wheel touches one slot per tick, and each entry is two longs in a primitive array, so a million
+// outstanding holds are ~16 MB and no table scans.
+// There is no cancel: callers must tolerate an id firing after it stopped mattering.
+final class TimingWheel {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int LEVELS = 4;
+
+    private final long tickMillis;
+    private final Bucket[][] wheel = new Bucket[LEVELS][SLOTS];
+    private final Bucket overdue = new Bucket();   // deadline already passed when scheduled
+    private final Bucket overflow = new Bucket();  // beyond the top level's block
+    private long currentTick;
+    private int size;
+
+    TimingWheel(long tickMillis, long nowMillis) {
+        this.tickMillis = tickMillis;
+        this.currentTick = nowMillis / tickMillis;
+        for (Bucket[] level : wheel) {
+            for (int i = 0; i < SLOTS; i++) {
+                level[i] = new Bucket();
+            }
+        }
+    }
+
+    synchronized void schedule(long id, long deadlineMillis) {
+        bucketFor(tickOf(deadlineMillis)).add(id, deadlineMillis);
+        size++;
+    }
+
+    // Moves the clock to now and returns the ids whose deadline has passed, in no particular order
+    synchronized long[] advance(long nowMillis) {
+        Bucket expired = new Bucket();
+        overdue.drainTo(expired);
+        long target = nowMillis / tickMillis;
+        while (currentTick < target) {
+            currentTick++;
+            cascade();
+            wheel[0][(int) (currentTick & (SLOTS - 1))].drainTo(expired);
+            overdue.drainTo(expired); // cascaded entries due exactly now
+        }
+        size -= expired.size;
+        return Arrays.copyOf(expired.ids, expired.size);
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    // Rounds up, so an entry never fires before its deadline
+    private long tickOf(long deadlineMillis) {
+        return Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis);
+    }
+
+    private Bucket bucketFor(long tick) {
+        if (tick <= currentTick) {
+            return overdue;
+        }
+        for (int level = 0; level < LEVELS; level++) {
+            int shift = SLOT_BITS * (level + 1);
+            if (tick >> shift == currentTick >> shift) {
+                return wheel[level][(int) ((tick >> (SLOT_BITS * level)) & (SLOTS - 1))];
+            }
+        }
+        return overflow;
+    }
+
+    // Entering a new block at some level: everything filed under it one level up now belongs lower down
+    private void cascade() {
+        for (int level = 1; level < LEVELS; level++) {
+            int shift = SLOT_BITS * level;
+            if ((currentTick & ((1L << shift) - 1)) != 0) {
+                return;
+            }
+            refile(wheel[level][(int) ((currentTick >> shift) & (SLOTS - 1))]);
+        }
+        if ((currentTick & ((1L << (SLOT_BITS * LEVELS)) - 1)) == 0) {
+            refile(overflow);
+        }
+    }
+
+    private void refile(Bucket bucket) {
+        Bucket moving = new Bucket();
+        bucket.drainTo(moving);
+        for (int i = 0; i < moving.size; i++) {
+            bucketFor(tickOf(moving.deadlines[i])).add(moving.ids[i], moving.deadlines[i]);
+        }
+    }
+
+    private static final class Bucket {
+        private long[] ids = new long[0];
+        private long[] deadlines = new long[0];
+        private int size;
+
+        void add(long id, long deadline) {
+            if (size == ids.length) {
+                int capacity = Math.max(4, size * 2);
+                ids = Arrays.copyOf(ids, capacity);
+                deadlines = Arrays.copyOf(deadlines, capacity);
+            }
+            ids[size] = id;
+            deadlines[size] = deadline;
+            size++;
+        }
+
+        void drainTo(Bucket target) {
+            for (int i = 0; i < size; i++) {
+                target.add(ids[i], deadlines[i]);
+            }
+            size = 0;
+            if (ids.length > 64) {
+                ids = new long[0];
+                deadlines = new long[0];
+            }
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.kobia.smartstock.service;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+// Bounded in-process cache with W-TinyLFU eviction. New entries land in a small LRU window (1% of capacity);
+// when the window overflows, its oldest entry only gets into the main area if it has been asked for more
+// often than the entry it would evict, as estimated by a count-min sketch of recent lookups. The main area
+// is a segmented LRU: entries hit a second time move from probation (20%) to protected (80%). So a burst of
+// one-off lookups can't flush the keys that are asked for all day.
+// One lock guards everything; every operation is a few hash-map steps, far cheaper than the query it saves.
+final class TinyLfuCache<K, V> {
+
+    private final int windowCapacity;
+    private final int protectedCapacity;
+    private final int mainCapacity;
+    private final long expireAfterWriteNanos;
+    private final FrequencySketch sketch;
+    private final LinkedHashMap<K, Entry<V>> window = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<K, Entry<V>> probation = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<K, Entry<V>> protectedArea = new LinkedHashMap<>(16, 0.75f, true);
+    // One token per key being loaded; only as large as the number of loads in flight
+    private final Map<K, Object> loading = new HashMap<>();
+    private long invalidations;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long rejections;
+
+    TinyLfuCache(int capacity, long expireAfterWriteNanos) {
+        this.windowCapacity = Math.max(1, capacity / 100);
+        this.mainCapacity = Math.max(1, capacity - windowCapacity);
+        this.protectedCapacity = Math.max(1, mainCapacity * 4 / 5);
+        this.expireAfterWriteNanos = expireAfterWriteNanos;
+        this.sketch = new FrequencySketch(capacity);
+    }
+
+    // The loader runs outside the lock. Its result is only cached if this key wasn't invalidated meanwhile,
+    // so a read that raced a write can't put the old row back after the writer's invalidation. Invalidating
+    // other keys doesn't matter, so a busy write path doesn't stop unrelated loads from being cached.
+    V get(K key, Function<K, V> loader) {
+        Object token = new Object();
+        synchronized (this) {
+            V cached = lookup(key, System.nanoTime());
+            if (cached != null) {
+                hits++;
+                return cached;
+            }
+            misses++;
+            loading.put(key, token);
+        }
+        V loaded = null;
+        try {
+            loaded = loader.apply(key);
+        } finally {
+            synchronized (this) {
+                if (loading.remove(key, token) && loaded != null) {
+                    insert(key, loaded, System.nanoTime());
+                }
+            }
+        }
+        return loaded;
+    }
+
+    // For warming: inserts without counting a lookup
+    synchronized void put(K key, V value) {
+        insert(key, value, System.nanoTime());
+    }
+
+    synchronized void invalidate(K key) {
+        invalidations++;
+        loading.remove(key);
+        if (window.remove(key) == null && probation.remove(key) == null) {
+            protectedArea.remove(key);
+        }
+    }
+
+    synchronized Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        long lookups = hits + misses;
+        snapshot.put("size", window.size() + probation.size() + protectedArea.size());
+        snapshot.put("capacity", windowCapacity + mainCapacity);
+        snapshot.put("hits", hits);
+        snapshot.put("misses", misses);
+        snapshot.put("hitRatio", lookups == 0 ? 0.0 : (double) hits / lookups);
+        snapshot.put("evictions", evictions);
+        snapshot.put("admissionRejections", rejections);
+        snapshot.put("invalidations", invalidations);
+        return snapshot;
+    }
+
+    private V lookup(K key, long now) {
+        sketch.increment(key);
+        Entry<V> entry = window.get(key);
+        if (entry == null) {
+            entry = probation.remove(key);
+            if (entry != null) {
+                promote(key, entry);
+            } else {
+                entry = protectedArea.get(key);
+            }
+        }
+        if (entry == null) {
+            return null;
+        }
+        if (now - entry.writtenAt >= expireAfterWriteNanos) {
+            if (window.remove(key) == null) {
+                protectedArea.remove(key);
+            }
+            return null;
+        }
+        return entry.value;
+    }
+
+    private void promote(K key, Entry<V> entry) {
+        protectedArea.put(key, entry);
+        if (protectedArea.size() > protectedCapacity) {
+            Map.Entry<K, Entry<V>> demoted = removeEldest(protectedArea);
+            probation.put(demoted.getKey(), demoted.getValue());
+        }
+    }
+
+    private void insert(K key, V value, long now) {
+        Entry<V> entry = new Entry<>(value, now);
+        for (LinkedHashMap<K, Entry<V>> segment : List.of(window, probation, protectedArea)) {
+            if (segment.containsKey(key)) {
+                segment.put(key, entry);
+                return;
+            }
+        }
+        window.put(key, entry);
+        if (window.size() <= windowCapacity) {
+            return;
+        }
+        Map.Entry<K, Entry<V>> candidate = removeEldest(window);
+        if (probation.size() + protectedArea.size() < mainCapacity) {
+            probation.put(candidate.getKey(), candidate.getValue());
+            return;
+        }
+        LinkedHashMap<K, Entry<V>> victims = probation.isEmpty() ? protectedArea : probation;
+        K victim = victims.keySet().iterator().next();
+        evictions++;
+        if (sketch.frequency(candidate.getKey()) > sketch.frequency(victim)) {
+            victims.remove(victim);
+            probation.put(candidate.getKey(), candidate.getValue());
+        } else {
+            rejections++;
+        }
+    }
+
+    private static <K, E> Map.Entry<K, E> removeEldest(LinkedHashMap<K, E> segment) {
+        Iterator<Map.Entry<K, E>> iterator = segment.entrySet().iterator();
+        Map.Entry<K, E> eldest = iterator.next();
+        Map.Entry<K, E> removed = Map.entry(eldest.getKey(), eldest.getValue());
+        iterator.remove();
+        return removed;
+    }
+
+    private record Entry<V>(V value, long writtenAt) {
+    }
+
+    // Count-min sketch, 4 rows of counters capped at 15. All counters are halved once the sample reaches 10x the
+    // capacity, so popularity fades and yesterday's best sellers don't hold their place forever.
+    private static final class FrequencySketch {
+        private static final long[] SEEDS = {0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L};
+
+        private final byte[][] rows = new byte[SEEDS.length][];
+        private final int mask;
+        private final int sampleSize;
+        private int additions;
+
+        FrequencySketch(int capacity) {
+            int width = Integer.highestOneBit(Math.max(16, capacity * 2 - 1)) << 1;
+            for (int i = 0; i < rows.length; i++) {
+                rows[i] = new byte[width];
+            }
+            this.mask = width - 1;
+            this.sampleSize = Math.max(10, capacity * 10);
+        }
+
+        void increment(Object key) {
+            int hash = key.hashCode();
+            boolean added = false;
+            for (int i = 0; i < rows.length; i++) {
+                int index = index(hash, i);
+                if (rows[i][index] < 15) {
+                    rows[i][index]++;
+                    added = true;
+                }
+            }
+            if (added && ++additions >= sampleSize) {
+                for (byte[] row : rows) {
+                    for (int j = 0; j < row.length; j++) {
+                        row[j] >>= 1;
+                    }
+                }
+                additions /= 2;
+            }
+        }
+
+        int frequency(Object key) {
+            int hash = key.hashCode();
+            int frequency = 15;
+            for (int i = 0; i < rows.length; i++) {
+                frequency = Math.min(frequency, rows[i][index(hash, i)]);
+            }
+            return frequency;
+        }
+
+        private int index(int hash, int row) {
+            long mixed = (hash + SEEDS[row]) * SEEDS[row];
+            return (int) (mixed >>> 32) & mask;
+        }
+    }
+}
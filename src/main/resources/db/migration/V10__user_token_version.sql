@@ -0,0 +1,4 @@
+-- Tokens carry the permission mask they were issued with. token_version is bumped whenever a user's
+-- permissions change, and a token with an older version is refused, so changes apply before it expires.
+
+alter table users add column token_version integer not null default 0;
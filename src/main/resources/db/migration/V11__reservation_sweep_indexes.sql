@@ -0,0 +1,6 @@
+-- Safety sweep for holds whose expiry was only scheduled on a node that has since gone away
+create index idx_stock_reservations_status_expires on stock_reservations (status, expires_at);
+
+-- Available-to-sell sums a product's stock across every location and escrow shard
+create index idx_location_stock_product on location_stock (product_id);
+create index idx_stock_shards_product on stock_shards (product_id);
@@ -0,0 +1,18 @@
+-- Audit journal checkpoints are kept per journal (i.e. per node) instead of in the one shared
+-- audit_checkpoints row, and the byte ranges persisted ahead of the watermark are stored as rows instead
+-- of a varchar that a burst of out-of-order batches could overflow.
+-- audit_checkpoints is left in place: a journal written before this change claims that row once on startup.
+
+create table audit_journal_checkpoints (
+    journal_id varchar(36) not null,
+    segment bigint not null,
+    watermark bigint not null,
+    primary key (journal_id)
+);
+
+create table audit_persisted_ranges (
+    journal_id varchar(36) not null references audit_journal_checkpoints,
+    start_offset bigint not null,
+    end_offset bigint not null,
+    primary key (journal_id, start_offset)
+);
@@ -0,0 +1,62 @@
+-- Schema as previously created by Hibernate ddl-auto=update. Existing databases are baselined at this version.
+
+create table users (
+    id bigint generated by default as identity,
+    email varchar(255) not null unique,
+    password varchar(255) not null,
+    username varchar(255) not null unique,
+    primary key (id)
+);
+
+create table user_permissions (
+    user_id bigint not null references users,
+    permission varchar(255)
+);
+
+create table user_requests (
+    id bigint generated by default as identity,
+    request_type varchar(255) not null,
+    target_username varchar(255) not null,
+    target_email varchar(255),
+    reason varchar(255),
+    status varchar(255) not null,
+    created_by bigint references users,
+    approved_by bigint references users,
+    created_at timestamp(6) not null,
+    updated_at timestamp(6),
+    primary key (id)
+);
+
+create table products (
+    id bigint generated by default as identity,
+    sku varchar(255) not null unique,
+    name varchar(255) not null,
+    category varchar(255),
+    unit_price float(53) not null,
+    current_stock integer not null,
+    reorder_point integer not null,
+    created_at timestamp(6),
+    updated_at timestamp(6),
+    primary key (id)
+);
+
+create table stock_transactions (
+    id bigint generated by default as identity,
+    product_id bigint not null references products,
+    user_id bigint not null references users,
+    transaction_type varchar(255) not null,
+    quantity integer not null,
+    notes varchar(255),
+    transaction_date timestamp(6) not null,
+    primary key (id)
+);
+
+create table purchase_orders (
+    id bigint generated by default as identity,
+    product_id bigint not null references products,
+    generated_by bigint not null references users,
+    quantity_ordered integer not null,
+    status varchar(255) not null,
+    order_date timestamp(6) not null,
+    primary key (id)
+);
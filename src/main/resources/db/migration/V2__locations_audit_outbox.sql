@@ -0,0 +1,42 @@
+-- Multi-location stock, audit journal checkpoint and change outbox.
+-- Written with IF NOT EXISTS so databases that already picked these up through ddl-auto=update migrate cleanly.
+
+create table if not exists locations (
+    id bigint generated by default as identity,
+    code varchar(255) not null unique,
+    name varchar(255) not null,
+    type varchar(255) not null,
+    created_at timestamp(6),
+    primary key (id)
+);
+
+create table if not exists location_stock (
+    id bigint generated by default as identity,
+    location_id bigint not null references locations,
+    product_id bigint not null references products,
+    quantity integer not null,
+    updated_at timestamp(6),
+    primary key (id),
+    constraint uk_location_stock unique (location_id, product_id)
+);
+
+alter table stock_transactions add column if not exists location_id bigint references locations;
+alter table purchase_orders add column if not exists location_id bigint references locations;
+
+create table if not exists audit_checkpoints (
+    id bigint not null,
+    segment bigint not null,
+    watermark bigint not null,
+    persisted_ranges varchar(4000),
+    primary key (id)
+);
+
+create table if not exists outbox_events (
+    id bigint generated by default as identity,
+    aggregate_type varchar(255) not null,
+    aggregate_id bigint not null,
+    event_type varchar(255) not null,
+    payload varchar(4000) not null,
+    created_at timestamp(6) not null,
+    primary key (id)
+);
@@ -0,0 +1,40 @@
+-- Permissions move from the user_permissions join table to a bitmask on users.
+-- Bit n is the Permission enum constant with ordinal n. Names outside the catalog have no bit; they are
+-- copied to unmapped_user_permissions first so nothing is lost when user_permissions is dropped.
+
+alter table users add column permission_mask bigint not null default 0;
+
+update users set permission_mask = coalesce((
+    select sum(distinct case p.permission
+        when 'PENDING_APPROVAL' then 1
+        when 'VIEW_INVENTORY' then 2
+        when 'MANAGE_INVENTORY' then 4
+        when 'PROCESS_SALE' then 8
+        when 'CREATE_USER_REQUEST' then 16
+        when 'DELETE_USER_REQUEST' then 32
+        when 'APPROVE_USER_CREATION' then 64
+        when 'APPROVE_USER_DELETION' then 128
+        when 'ASSIGN_PERMISSION' then 256
+        when 'VIEW_USER_LIST' then 512
+        when 'VIEW_REQUESTS' then 1024
+        when 'READ_CHANGE_EVENTS' then 2048
+        else 0 end)
+    from user_permissions p
+    where p.user_id = users.id), 0);
+
+create table unmapped_user_permissions (
+    user_id bigint not null,
+    permission varchar(255) not null,
+    primary key (user_id, permission)
+);
+
+insert into unmapped_user_permissions (user_id, permission)
+select distinct p.user_id, p.permission
+from user_permissions p
+where p.permission is not null
+  and p.permission not in ('PENDING_APPROVAL', 'VIEW_INVENTORY', 'MANAGE_INVENTORY', 'PROCESS_SALE',
+                           'CREATE_USER_REQUEST', 'DELETE_USER_REQUEST', 'APPROVE_USER_CREATION',
+                           'APPROVE_USER_DELETION', 'ASSIGN_PERMISSION', 'VIEW_USER_LIST', 'VIEW_REQUESTS',
+                           'READ_CHANGE_EVENTS');
+
+drop table user_permissions;
@@ -0,0 +1,14 @@
+-- Escrow mode for hot SKUs: products.stock_shards > 0 splits each location's stock for the product
+-- across that many stock_shards rows, so concurrent sales update different rows.
+
+alter table products add column stock_shards integer not null default 0;
+
+create table stock_shards (
+    id bigint generated by default as identity,
+    location_id bigint not null references locations,
+    product_id bigint not null references products,
+    shard integer not null,
+    quantity integer not null,
+    primary key (id),
+    constraint uk_stock_shards unique (location_id, product_id, shard)
+);
@@ -0,0 +1,20 @@
+-- Time-limited holds for checkout and click-and-collect. A hold takes its quantity out of the
+-- location's sellable stock when it is placed; confirming turns it into a sale, releasing or expiring
+-- puts the quantity back. Expiry is driven from memory, so the only index needed is for the
+-- per-product sum of active holds.
+
+create table stock_reservations (
+    id bigint generated by default as identity,
+    product_id bigint not null references products,
+    location_id bigint not null references locations,
+    created_by bigint not null references users,
+    quantity integer not null,
+    status varchar(255) not null,
+    reference varchar(255),
+    created_at timestamp(6) not null,
+    expires_at timestamp(6) not null,
+    resolved_at timestamp(6),
+    primary key (id)
+);
+
+create index idx_stock_reservations_product_status on stock_reservations (product_id, status);
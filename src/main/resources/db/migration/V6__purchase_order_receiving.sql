@@ -0,0 +1,10 @@
+-- Purchase-order workflow: approval, and deliveries that may arrive in several parts.
+-- Status moves PENDING -> APPROVED -> PARTIALLY_DELIVERED -> DELIVERED as quantity_received grows.
+
+alter table purchase_orders add column quantity_received integer not null default 0;
+alter table purchase_orders add column approved_by bigint references users;
+alter table purchase_orders add column approved_at timestamp(6);
+alter table purchase_orders add column received_at timestamp(6);
+
+-- PO listings are filtered by status and shown newest first
+create index idx_purchase_orders_status_date on purchase_orders (status, order_date);
@@ -0,0 +1,12 @@
+-- Changes to a product's global stock that haven't been applied to products.current_stock yet. Each row is
+-- written in the same transaction as the location change it mirrors, so a crash can't lose one; the
+-- aggregator drains them into current_stock and deletes them.
+
+create table pending_stock_deltas (
+    id bigint generated by default as identity,
+    product_id bigint not null references products,
+    delta integer not null,
+    primary key (id)
+);
+
+create index idx_pending_stock_deltas_product on pending_stock_deltas (product_id);
@@ -0,0 +1,22 @@
+-- Change-feed order. Identity ids are handed out when a row is inserted, not when its transaction commits,
+-- so paging by id can step past an event whose transaction is still open. OutboxSequencer numbers events
+-- in seq once they are visible, one batch at a time under the outbox_sequence row lock, so every event
+-- that commits later gets a higher seq than any a consumer has already seen.
+
+alter table outbox_events add column seq bigint;
+
+-- Existing events keep their id as their position, so consumers' cursors stay valid
+update outbox_events set seq = id;
+
+create unique index idx_outbox_events_seq on outbox_events (seq);
+
+drop index if exists idx_outbox_events_type_id;
+create index idx_outbox_events_type_seq on outbox_events (event_type, seq);
+
+create table outbox_sequence (
+    id bigint not null,
+    last_seq bigint not null,
+    primary key (id)
+);
+
+insert into outbox_sequence (id, last_seq) select 1, coalesce(max(id), 0) from outbox_events;
@@ -0,0 +1,41 @@
+package com.kobia.smartstock;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Runs the real migrations on a database of its own, stopping before V3 to load pre-bitmask permissions
+class UserPermissionMigrationTests {
+
+	private final DataSource dataSource = new DriverManagerDataSource(
+			"jdbc:h2:mem:permission_migration;MODE=PostgreSQL;DB_CLOSE_DELAY=-1", "sa", "");
+	private final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+	@Test
+	void permissionsOutsideTheCatalogAreKeptAside() {
+		flyway("2").migrate();
+		jdbcTemplate.update("INSERT INTO users (id, email, password, username) VALUES (1, 'a@example.com', 'x', 'a')");
+		jdbcTemplate.update("INSERT INTO user_permissions (user_id, permission) VALUES (1, 'PROCESS_SALE'), "
+				+ "(1, 'VIEW_INVENTORY'), (1, 'PROCESS_SALE'), (1, 'MANAGE_RETURNS'), (1, NULL)");
+
+		flyway("3").migrate();
+
+		assertThat(jdbcTemplate.queryForObject("SELECT permission_mask FROM users WHERE id = 1", Long.class))
+				.isEqualTo(8L | 2L);
+		assertThat(jdbcTemplate.queryForList("SELECT permission FROM unmapped_user_permissions WHERE user_id = 1",
+				String.class)).containsExactly("MANAGE_RETURNS");
+	}
+
+	private Flyway flyway(String target) {
+		return Flyway.configure()
+				.dataSource(dataSource)
+				.locations("classpath:db/migration", "classpath:db/vendor/h2")
+				.target(target)
+				.load();
+	}
+}
@@ -0,0 +1,61 @@
+package com.kobia.smartstock.config;
+
+import com.kobia.smartstock.entity.Permission;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.authorization.AuthorizationResult;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PermissionAuthorizationManagerFactoryTests {
+
+	private final PermissionAuthorizationManagerFactory<Object> factory = new PermissionAuthorizationManagerFactory<>();
+
+	// No granted authorities on the token, so anything granted here came from the mask
+	private final Authentication cashier = new UsernamePasswordAuthenticationToken(
+			new PermissionPrincipal("cashier", Permission.PROCESS_SALE.bit() | Permission.VIEW_INVENTORY.bit()),
+			null, List.of());
+
+	@Test
+	void catalogPermissionsAreCheckedAgainstTheMask() {
+		assertThat(granted(factory.hasAuthority("PROCESS_SALE"), cashier)).isTrue();
+		assertThat(granted(factory.hasAuthority("MANAGE_INVENTORY"), cashier)).isFalse();
+
+		assertThat(granted(factory.hasAnyAuthority("MANAGE_INVENTORY", "PROCESS_SALE"), cashier)).isTrue();
+		assertThat(granted(factory.hasAnyAuthority("MANAGE_INVENTORY", "ASSIGN_PERMISSION"), cashier)).isFalse();
+
+		assertThat(granted(factory.hasAllAuthorities("PROCESS_SALE", "VIEW_INVENTORY"), cashier)).isTrue();
+		assertThat(granted(factory.hasAllAuthorities("PROCESS_SALE", "MANAGE_INVENTORY"), cashier)).isFalse();
+	}
+
+	@Test
+	void otherPrincipalsAndNamesFallBackToGrantedAuthorities() {
+		Authentication legacy = new UsernamePasswordAuthenticationToken("legacy", null,
+				List.of(new SimpleGrantedAuthority("PROCESS_SALE")));
+		assertThat(granted(factory.hasAuthority("PROCESS_SALE"), legacy)).isTrue();
+		assertThat(granted(factory.hasAuthority("MANAGE_INVENTORY"), legacy)).isFalse();
+
+		Authentication auditor = new UsernamePasswordAuthenticationToken(
+				new PermissionPrincipal("auditor", 0), null, List.of(new SimpleGrantedAuthority("AUDITOR")));
+		assertThat(granted(factory.hasAuthority("AUDITOR"), auditor)).isTrue();
+		assertThat(granted(factory.hasAnyAuthority("AUDITOR", "PROCESS_SALE"), cashier)).isFalse();
+	}
+
+	@Test
+	void unauthenticatedCallersAreDenied() {
+		Authentication unauthenticated = UsernamePasswordAuthenticationToken.unauthenticated(
+				new PermissionPrincipal("cashier", Permission.PROCESS_SALE.bit()), null);
+		assertThat(granted(factory.hasAuthority("PROCESS_SALE"), unauthenticated)).isFalse();
+		assertThat(granted(factory.hasAuthority("PROCESS_SALE"), null)).isFalse();
+	}
+
+	private static boolean granted(AuthorizationManager<Object> manager, Authentication authentication) {
+		AuthorizationResult result = manager.authorize(() -> authentication, new Object());
+		return result != null && result.isGranted();
+	}
+}
@@ -0,0 +1,95 @@
+package com.kobia.smartstock.config;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QueryProfilerTests {
+
+	@Test
+	void plainStatementsWithDifferentLiteralsShareAShape() {
+		assertThat(QueryProfiler.normalize("select * from products where sku = 'A-1' and current_stock < 10"))
+				.isEqualTo("select * from products where sku = ? and current_stock < ?");
+		assertThat(QueryProfiler.normalize("select * from products where id in (1, 2, 3)"))
+				.isEqualTo("select * from products where id in (?...)");
+		assertThat(QueryProfiler.normalize("select name from v2_products where note = 'it''s'"))
+				.isEqualTo("select name from v2_products where note = ?");
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void repeatedStatementInOneRequestIsReportedAsNPlusOne() {
+		QueryProfiler profiler = new QueryProfiler(new QueryProfilerProperties(true, 0, 1.0, 3, 1, 60000));
+
+		profiler.beginRequest("GET /api/inventory/transactions");
+		for (long id = 1; id <= 3; id++) {
+			profiler.record("select * from users where id = ?", false, 1_000_000, new Object[]{id}, 1);
+		}
+		profiler.record("select * from stock_transactions", false, 5_000_000, new Object[0], 0);
+		profiler.endRequest("GET /api/inventory/transactions");
+
+		Map<String, Object> snapshot = profiler.snapshot();
+		Map<String, Object> endpoint = (Map<String, Object>) ((Map<String, Object>) snapshot.get("endpoints"))
+				.get("GET /api/inventory/transactions");
+		assertThat(endpoint.get("requests")).isEqualTo(1L);
+		assertThat(endpoint.get("statements")).isEqualTo(4L);
+		assertThat(endpoint.get("nPlusOneRequests")).isEqualTo(1L);
+
+		List<Map<String, Object>> slowQueries = (List<Map<String, Object>>) snapshot.get("slowQueries");
+		assertThat(slowQueries).hasSize(1);
+		assertThat(slowQueries.get(0).get("sql")).isEqualTo("select * from stock_transactions");
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void wrappedDataSourceRecordsStatementsWithTheirBinds() throws Exception {
+		JdbcDataSource h2 = new JdbcDataSource();
+		h2.setURL("jdbc:h2:mem:profiler;DB_CLOSE_DELAY=-1");
+		QueryProfiler profiler = new QueryProfiler(new QueryProfilerProperties(true, 0, 1.0, 10, 20, 60000));
+		DataSource dataSource = profiler.wrap(h2);
+
+		profiler.beginRequest("POST /api/inventory/products");
+		try (Connection connection = dataSource.getConnection()) {
+			try (Statement statement = connection.createStatement()) {
+				statement.execute("create table items (id int, name varchar(20))");
+			}
+			try (PreparedStatement insert = connection.prepareStatement("insert into items values (?, ?)")) {
+				insert.setInt(1, 7);
+				insert.setString(2, "widget");
+				insert.executeUpdate();
+			}
+		}
+		profiler.endRequest("POST /api/inventory/products");
+
+		Map<String, Object> snapshot = profiler.snapshot();
+		Map<String, Object> endpoint = (Map<String, Object>) ((Map<String, Object>) snapshot.get("endpoints"))
+				.get("POST /api/inventory/products");
+		assertThat(endpoint.get("statements")).isEqualTo(2L);
+		assertThat((List<Map<String, Object>>) snapshot.get("slowQueries"))
+				.anySatisfy(slow -> {
+					assertThat(slow.get("sql")).isEqualTo("insert into items values (?, ?)");
+					assertThat(slow.get("sampledBinds")).isEqualTo("[1=7, 2=widget]");
+				});
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void bindsOnUserTablesAreLoggedAsTypesAndLengths() {
+		QueryProfiler profiler = new QueryProfiler(new QueryProfilerProperties(true, 0, 1.0, 10, 20, 60000));
+
+		profiler.record("select u1_0.id from users u1_0 where u1_0.username = ? and u1_0.token_version = ?", false,
+				1_000_000, new Object[]{"alice@example.com", 3}, 2);
+
+		assertThat((List<Map<String, Object>>) profiler.snapshot().get("slowQueries"))
+				.singleElement()
+				.satisfies(slow -> assertThat(slow.get("sampledBinds")).isEqualTo("[1=String(17), 2=Integer(1)]"));
+	}
+}
@@ -0,0 +1,73 @@
+package com.kobia.smartstock.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReadReplicaRoutingDataSourceTests {
+
+	private final DataSource primary = new DriverManagerDataSource("jdbc:h2:mem:routing_primary;DB_CLOSE_DELAY=-1", "sa", "");
+	private final DataSource replica = new DriverManagerDataSource("jdbc:h2:mem:routing_replica;DB_CLOSE_DELAY=-1", "sa", "");
+
+	@AfterEach
+	void clearRouting() {
+		ReadReplicaRoutingDataSource.clear();
+	}
+
+	@Test
+	void unannotatedRequestsUsePrimary() throws SQLException {
+		ReplicaHealthMonitor monitor = new ReplicaHealthMonitor(replica, "SELECT 0");
+		monitor.probe();
+		ReadReplicaRoutingDataSource routing = new ReadReplicaRoutingDataSource(primary, replica, monitor);
+
+		assertThat(databaseOf(routing)).isEqualTo("ROUTING_PRIMARY");
+	}
+
+	@Test
+	void replicaReadsWithinStalenessUseReplica() throws SQLException {
+		ReplicaHealthMonitor monitor = new ReplicaHealthMonitor(replica, "SELECT 1000");
+		monitor.probe();
+		ReadReplicaRoutingDataSource routing = new ReadReplicaRoutingDataSource(primary, replica, monitor);
+
+		ReadReplicaRoutingDataSource.allowReplica(5000);
+		assertThat(databaseOf(routing)).isEqualTo("ROUTING_REPLICA");
+
+		ReadReplicaRoutingDataSource.allowReplica(500);
+		assertThat(databaseOf(routing)).isEqualTo("ROUTING_PRIMARY");
+	}
+
+	@Test
+	void fallsBackToPrimaryWhenReplicaIsDown() throws SQLException {
+		DataSource down = new DriverManagerDataSource("jdbc:h2:mem:routing_down;IFEXISTS=TRUE", "sa", "");
+		ReplicaHealthMonitor monitor = new ReplicaHealthMonitor(replica, "SELECT 0");
+		monitor.probe();
+		ReadReplicaRoutingDataSource routing = new ReadReplicaRoutingDataSource(primary, down, monitor);
+
+		ReadReplicaRoutingDataSource.allowReplica(5000);
+		assertThat(databaseOf(routing)).isEqualTo("ROUTING_PRIMARY");
+		assertThat(monitor.canServe(5000)).isFalse();
+	}
+
+	@Test
+	void nullLagMeansTheReplicaIsUnavailable() {
+		ReplicaHealthMonitor monitor = new ReplicaHealthMonitor(replica, "SELECT 0");
+		monitor.probe();
+		assertThat(monitor.canServe(5000)).isTrue();
+
+		ReplicaHealthMonitor detached = new ReplicaHealthMonitor(replica, "SELECT CAST(NULL AS BIGINT)");
+		detached.probe();
+		assertThat(detached.canServe(5000)).isFalse();
+	}
+
+	private static String databaseOf(DataSource dataSource) throws SQLException {
+		try (Connection connection = dataSource.getConnection()) {
+			return connection.getCatalog();
+		}
+	}
+}
@@ -0,0 +1,113 @@
+package com.kobia.smartstock.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// One login per terminal and an almost empty refill, so the second attempt from the same caller is throttled
+@SpringBootTest(properties = {
+		"smartstock.throttle.max-concurrent=5",
+		"smartstock.throttle.limits.login.capacity=1",
+		"smartstock.throttle.limits.login.refill-per-second=0.01",
+		"smartstock.throttle.terminal-header=X-Terminal-Id"
+})
+@AutoConfigureMockMvc
+class ThrottleFilterTests {
+
+	private static final AtomicInteger ADDRESSES = new AtomicInteger();
+
+	@Autowired
+	MockMvc mockMvc;
+
+	@Autowired
+	RequestThrottle requestThrottle;
+
+	@Test
+	void throttledCallerGets429WithRetryAfter() throws Exception {
+		String address = address();
+		long admittedBefore = counter("login", "admitted");
+		long throttledBefore = counter("login", "throttled");
+
+		login(address, null).andExpect(status().is(not(429)));
+		login(address, null)
+				.andExpect(status().isTooManyRequests())
+				.andExpect(header().string("Retry-After", "100"));
+
+		assertThat(counter("login", "admitted")).isEqualTo(admittedBefore + 1);
+		assertThat(counter("login", "throttled")).isEqualTo(throttledBefore + 1);
+	}
+
+	@Test
+	void beforeLoginCallersAreKeyedByAddressAndTerminal() throws Exception {
+		String address = address();
+		login(address, "till-1").andExpect(status().is(not(429)));
+		login(address, "till-1").andExpect(status().isTooManyRequests());
+
+		login(address, "till-2").andExpect(status().is(not(429)));
+		login(address(), "till-1").andExpect(status().is(not(429)));
+	}
+
+	@Test
+	void requestsBeyondMaxConcurrentAreShed() throws Exception {
+		long shedBefore = ((Number) requestThrottle.snapshot().get("shed")).longValue();
+		int held = 0;
+		try {
+			while (requestThrottle.tryAdmit(RequestThrottle.EndpointClass.READ, "holder", System.nanoTime())
+					== RequestThrottle.Decision.ADMITTED) {
+				held++;
+			}
+			assertThat(held).isEqualTo(5);
+
+			login(address(), null)
+					.andExpect(status().isTooManyRequests())
+					.andExpect(header().string("Retry-After", "1"));
+		} finally {
+			for (int i = 0; i < held; i++) {
+				requestThrottle.release();
+			}
+		}
+
+		// The probe loop's refusal counts too
+		assertThat(((Number) requestThrottle.snapshot().get("shed")).longValue()).isEqualTo(shedBefore + 2);
+		login(address(), null).andExpect(status().is(not(429)));
+	}
+
+	private ResultActions login(String address, String terminal) throws Exception {
+		return mockMvc.perform(post("/api/login")
+				.with(request -> {
+					request.setRemoteAddr(address);
+					if (terminal != null) {
+						request.addHeader("X-Terminal-Id", terminal);
+					}
+					return request;
+				})
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"username\":\"nobody-" + UUID.randomUUID() + "\",\"password\":\"wrong\"}"));
+	}
+
+	@SuppressWarnings("unchecked")
+	private long counter(String endpointClass, String name) {
+		Map<String, Object> classes = (Map<String, Object>) requestThrottle.snapshot().get("endpointClasses");
+		return ((Number) ((Map<String, Object>) classes.get(endpointClass)).get(name)).longValue();
+	}
+
+	// A fresh client address each time, so buckets left by other tests don't interfere
+	private static String address() {
+		int n = ADDRESSES.incrementAndGet();
+		return "10.0." + (n / 250) + "." + (n % 250 + 1);
+	}
+}
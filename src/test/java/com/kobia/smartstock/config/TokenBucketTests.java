@@ -0,0 +1,36 @@
+package com.kobia.smartstock.config;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketTests {
+
+	private static final long SECOND = 1_000_000_000L;
+
+	@Test
+	void allowsBurstUpToCapacityThenRefusesUntilRefilled() {
+		TokenBucket bucket = new TokenBucket(3, 1.0, 0);
+
+		assertThat(bucket.tryAcquire(0)).isTrue();
+		assertThat(bucket.tryAcquire(0)).isTrue();
+		assertThat(bucket.tryAcquire(0)).isTrue();
+		assertThat(bucket.tryAcquire(0)).isFalse();
+		assertThat(bucket.waitNanos(0)).isEqualTo(SECOND);
+
+		assertThat(bucket.tryAcquire(SECOND)).isTrue();
+		assertThat(bucket.tryAcquire(SECOND)).isFalse();
+	}
+
+	@Test
+	void idleBucketRefillsToCapacityOnly() {
+		TokenBucket bucket = new TokenBucket(2, 1.0, 0);
+		bucket.tryAcquire(0);
+		bucket.tryAcquire(0);
+
+		assertThat(bucket.isFull(100 * SECOND)).isTrue();
+		assertThat(bucket.tryAcquire(100 * SECOND)).isTrue();
+		assertThat(bucket.tryAcquire(100 * SECOND)).isTrue();
+		assertThat(bucket.tryAcquire(100 * SECOND)).isFalse();
+	}
+}
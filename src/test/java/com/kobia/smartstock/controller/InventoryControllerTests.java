@@ -0,0 +1,81 @@
+package com.kobia.smartstock.controller;
+
+import com.kobia.smartstock.config.JwtUtil;
+import com.kobia.smartstock.entity.Permission;
+import com.kobia.smartstock.entity.Product;
+import com.kobia.smartstock.entity.User;
+import com.kobia.smartstock.repository.ProductRepository;
+import com.kobia.smartstock.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.dataformat.cbor.CBORMapper;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+		"smartstock.inventory.aggregate-flush-ms=3600000",
+		"smartstock.outbox.sequence-ms=3600000"
+})
+@AutoConfigureMockMvc
+class InventoryControllerTests {
+
+	private static final MediaType CBOR = MediaType.parseMediaType("application/cbor");
+
+	@Autowired
+	MockMvc mockMvc;
+
+	@Autowired
+	JwtUtil jwtUtil;
+
+	@Autowired
+	ProductRepository productRepository;
+
+	@Autowired
+	UserRepository userRepository;
+
+	@Test
+	void productsAreServedAsCborWhenAccepted() throws Exception {
+		String sku = "CBOR-" + UUID.randomUUID().toString().substring(0, 8);
+		Product product = new Product();
+		product.setSku(sku);
+		product.setName("Product " + sku);
+		product.setUnitPrice(1.0);
+		product.setCurrentStock(9);
+		productRepository.save(product);
+
+		byte[] body = mockMvc.perform(get("/api/inventory/products")
+						.param("fields", "sku,currentStock")
+						.header("Authorization", "Bearer " + token())
+						.accept(CBOR))
+				.andExpect(status().isOk())
+				.andExpect(content().contentTypeCompatibleWith(CBOR))
+				.andReturn().getResponse().getContentAsByteArray();
+
+		JsonNode rows = new CBORMapper().readTree(body);
+		assertThat(rows.isArray()).isTrue();
+		JsonNode row = rows.valueStream().filter(r -> sku.equals(r.get("sku").asString())).findFirst().orElseThrow();
+		assertThat(row.get("currentStock").asInt()).isEqualTo(9);
+		assertThat(row.propertyNames()).containsExactly("sku", "currentStock");
+	}
+
+	private String token() {
+		String suffix = UUID.randomUUID().toString().substring(0, 8);
+		User user = new User();
+		user.setUsername("viewer-" + suffix);
+		user.setEmail("viewer-" + suffix + "@example.com");
+		user.setPassword("secret");
+		user.setPermissionMask(Permission.VIEW_INVENTORY.bit());
+		User saved = userRepository.save(user);
+		return jwtUtil.generateToken(saved.getUsername(), saved.getPermissionMask(), saved.getTokenVersion());
+	}
+}
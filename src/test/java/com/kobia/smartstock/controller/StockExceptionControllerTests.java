@@ -0,0 +1,203 @@
+package com.kobia.smartstock.controller;
+
+import com.kobia.smartstock.config.JwtUtil;
+import com.kobia.smartstock.dto.ReceiveDeliveryRequest;
+import com.kobia.smartstock.dto.StockAnomalyDTO;
+import com.kobia.smartstock.entity.Location;
+import com.kobia.smartstock.entity.Permission;
+import com.kobia.smartstock.entity.Product;
+import com.kobia.smartstock.entity.PurchaseOrder;
+import com.kobia.smartstock.entity.User;
+import com.kobia.smartstock.repository.LocationRepository;
+import com.kobia.smartstock.repository.ProductRepository;
+import com.kobia.smartstock.repository.PurchaseOrderRepository;
+import com.kobia.smartstock.repository.UserRepository;
+import com.kobia.smartstock.service.GlobalStockAggregator;
+import com.kobia.smartstock.service.PurchaseOrderService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// The scheduled flush is pushed out of the way so each test decides when stock moves between lists
+@SpringBootTest(properties = {
+		"smartstock.inventory.aggregate-flush-ms=3600000",
+		"smartstock.outbox.sequence-ms=3600000"
+})
+@AutoConfigureMockMvc
+class StockExceptionControllerTests {
+
+	private static final JsonMapper JSON = JsonMapper.builder().build();
+
+	@Autowired
+	MockMvc mockMvc;
+
+	@Autowired
+	JwtUtil jwtUtil;
+
+	@Autowired
+	GlobalStockAggregator globalStockAggregator;
+
+	@Autowired
+	PurchaseOrderService purchaseOrderService;
+
+	@Autowired
+	PurchaseOrderRepository purchaseOrderRepository;
+
+	@Autowired
+	ProductRepository productRepository;
+
+	@Autowired
+	LocationRepository locationRepository;
+
+	@Autowired
+	UserRepository userRepository;
+
+	@Autowired
+	JdbcTemplate jdbcTemplate;
+
+	User clerk;
+	Location location;
+	String token;
+
+	@BeforeEach
+	void setUp() {
+		String suffix = UUID.randomUUID().toString().substring(0, 8);
+		clerk = new User();
+		clerk.setUsername("clerk-" + suffix);
+		clerk.setEmail("clerk-" + suffix + "@example.com");
+		clerk.setPassword("secret");
+		clerk.setPermissionMask(Permission.VIEW_INVENTORY.bit());
+		clerk = userRepository.save(clerk);
+		token = jwtUtil.generateToken(clerk.getUsername(), clerk.getPermissionMask(), clerk.getTokenVersion());
+
+		location = new Location();
+		location.setCode("STORE-" + suffix);
+		location.setName("Store " + suffix);
+		location = locationRepository.save(location);
+	}
+
+	@Test
+	void invalidPagingIsABadRequest() throws Exception {
+		mockMvc.perform(get("/api/inventory/exceptions").param("page", "-1")
+						.header("Authorization", "Bearer " + token))
+				.andExpect(status().isBadRequest());
+		mockMvc.perform(get("/api/inventory/exceptions").param("size", "0")
+						.header("Authorization", "Bearer " + token))
+				.andExpect(status().isBadRequest());
+		mockMvc.perform(get("/api/inventory/exceptions").param("type", "ZERO").param("page", "0").param("size", "1")
+						.header("Authorization", "Bearer " + token))
+				.andExpect(status().isOk());
+	}
+
+	@Test
+	void flushPublishesEachMoveBetweenLists() throws Exception {
+		Product product = product(10);
+		product.setReorderPoint(5);
+		product = productRepository.save(product);
+
+		adjust(product, -6);  // 4: healthy -> LOW
+		adjust(product, -4);  // 0: LOW -> ZERO
+		exceptions("ZERO").andExpect(jsonPath("$.content[*].sku", hasItem(product.getSku())));
+		adjust(product, -2);  // -2: ZERO -> NEGATIVE
+		exceptions("ZERO").andExpect(jsonPath("$.content[*].sku", not(hasItem(product.getSku()))));
+		exceptions("NEGATIVE").andExpect(jsonPath("$.content[*].sku", hasItem(product.getSku())));
+		adjust(product, 20);  // 18: NEGATIVE -> healthy
+		adjust(product, -1);  // 17: still healthy, no event
+
+		assertThat(exceptionChanges(product)).containsExactly(
+				"null->LOW@4", "LOW->ZERO@0", "ZERO->NEGATIVE@-2", "NEGATIVE->null@18");
+	}
+
+	@Test
+	void receiptsStayReconciledUntilCurrentStockDrifts() {
+		Product product = product(0);
+		PurchaseOrder po = order(product, 10);
+
+		purchaseOrderService.receive(new ReceiveDeliveryRequest(
+				List.of(new ReceiveDeliveryRequest.Line(po.getId(), 4)), null), clerk);
+		assertThat(anomaly(product)).isNull(); // pending delta not flushed yet, but accounted for
+
+		globalStockAggregator.flush();
+		assertThat(anomaly(product)).isNull();
+
+		jdbcTemplate.update("UPDATE products SET current_stock = current_stock + 3 WHERE id = ?", product.getId());
+		StockAnomalyDTO anomaly = anomaly(product);
+		assertThat(anomaly).isNotNull();
+		assertThat(anomaly.currentStock()).isEqualTo(7);
+		assertThat(anomaly.pendingDelta()).isZero();
+		assertThat(anomaly.countedStock()).isEqualTo(4);
+	}
+
+	private ResultActions exceptions(String type) throws Exception {
+		return mockMvc.perform(get("/api/inventory/exceptions").param("type", type).param("size", "500")
+						.header("Authorization", "Bearer " + token))
+				.andExpect(status().isOk());
+	}
+
+	private void adjust(Product product, int delta) {
+		globalStockAggregator.record(product.getId(), delta);
+		globalStockAggregator.flush();
+	}
+
+	private List<String> exceptionChanges(Product product) {
+		return jdbcTemplate.queryForList("SELECT payload FROM outbox_events WHERE event_type = 'STOCK_EXCEPTION_CHANGED' "
+						+ "AND aggregate_id = ? ORDER BY id", String.class, product.getId()).stream()
+				.map(JSON::readTree)
+				.map(StockExceptionControllerTests::describe)
+				.toList();
+	}
+
+	private static String describe(JsonNode payload) {
+		return list(payload.get("from")) + "->" + list(payload.get("to")) + "@" + payload.get("currentStock").asInt();
+	}
+
+	// A healthy product is on no list, published as null
+	private static String list(JsonNode type) {
+		return type.isNull() ? "null" : type.asString();
+	}
+
+	private StockAnomalyDTO anomaly(Product product) {
+		return productRepository.findAnomalies(PageRequest.of(0, 500)).stream()
+				.filter(anomaly -> anomaly.productId().equals(product.getId()))
+				.findFirst()
+				.orElse(null);
+	}
+
+	private Product product(int currentStock) {
+		String sku = "EXC-" + UUID.randomUUID().toString().substring(0, 8);
+		Product product = new Product();
+		product.setSku(sku);
+		product.setName("Product " + sku);
+		product.setUnitPrice(1.0);
+		product.setCurrentStock(currentStock);
+		return productRepository.save(product);
+	}
+
+	private PurchaseOrder order(Product product, int quantity) {
+		PurchaseOrder po = new PurchaseOrder();
+		po.setProduct(product);
+		po.setGeneratedBy(clerk);
+		po.setLocation(location);
+		po.setQuantityOrdered(quantity);
+		po.setStatus("APPROVED");
+		return purchaseOrderRepository.save(po);
+	}
+}
@@ -0,0 +1,84 @@
+package com.kobia.smartstock.controller;
+
+import com.kobia.smartstock.config.JwtUtil;
+import com.kobia.smartstock.entity.Permission;
+import com.kobia.smartstock.entity.User;
+import com.kobia.smartstock.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+		"smartstock.inventory.aggregate-flush-ms=3600000",
+		"smartstock.outbox.sequence-ms=3600000"
+})
+@AutoConfigureMockMvc
+class UserControllerTests {
+
+	@Autowired
+	MockMvc mockMvc;
+
+	@Autowired
+	JwtUtil jwtUtil;
+
+	@Autowired
+	UserRepository userRepository;
+
+	@Test
+	void registeringWithAnUnknownPermissionIsABadRequest() throws Exception {
+		String name = "reg-" + UUID.randomUUID().toString().substring(0, 8);
+
+		mockMvc.perform(post("/api/register")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"username\":\"" + name + "\",\"email\":\"" + name + "@example.com\","
+								+ "\"password\":\"secret\",\"permissions\":[\"BOGUS\"]}"))
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.error").value("Unknown permission: BOGUS"));
+
+		assertThat(userRepository.findByUsername(name)).isEmpty();
+	}
+
+	@Test
+	void assigningAnUnknownPermissionIsABadRequest() throws Exception {
+		User admin = user(Permission.ASSIGN_PERMISSION.bit());
+		User target = user(Permission.VIEW_INVENTORY.bit());
+		String token = jwtUtil.generateToken(admin.getUsername(), admin.getPermissionMask(), admin.getTokenVersion());
+
+		mockMvc.perform(post("/api/admin/assign-permissions")
+						.header("Authorization", "Bearer " + token)
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"username\":\"" + target.getUsername() + "\",\"permissions\":[\"PROCESS_SALE\",\"BOGUS\"]}"))
+				.andExpect(status().isBadRequest())
+				.andExpect(content().string("Unknown permission: BOGUS"));
+
+		mockMvc.perform(post("/api/admin/assign-permissions")
+						.header("Authorization", "Bearer " + token)
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"username\":\"" + target.getUsername() + "\",\"permissions\":\"PROCESS_SALE\"}"))
+				.andExpect(status().isBadRequest());
+
+		assertThat(userRepository.findByUsername(target.getUsername()).orElseThrow().getPermissionMask())
+				.isEqualTo(Permission.VIEW_INVENTORY.bit());
+	}
+
+	private User user(long permissionMask) {
+		String name = "user-" + UUID.randomUUID().toString().substring(0, 8);
+		User user = new User();
+		user.setUsername(name);
+		user.setEmail(name + "@example.com");
+		user.setPassword("secret");
+		user.setPermissionMask(permissionMask);
+		return userRepository.save(user);
+	}
+}
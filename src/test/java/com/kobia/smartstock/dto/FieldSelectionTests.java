@@ -0,0 +1,72 @@
+package com.kobia.smartstock.dto;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FieldSelectionTests {
+
+	private final ProductDTO widget = new ProductDTO(1L, "W-1", "Widget", "Parts", 2.5, 40, 10, 1);
+
+	@Test
+	void recordComponentsAreSelectedInRequestedOrder() {
+		FieldSelection selection = FieldSelection.parse(" currentStock, sku ,,sku", ProductDTO.class);
+
+		List<?> rows = (List<?>) FieldSelection.apply(selection, List.of(widget));
+
+		assertThat(rows).isEqualTo(List.of(Map.of("currentStock", 40, "sku", "W-1")));
+		assertThat(new ArrayList<>(((Map<?, ?>) rows.get(0)).keySet())).isEqualTo(List.of("currentStock", "sku"));
+	}
+
+	@Test
+	void beanGettersAreSelected() {
+		StockTransactionDTO sale = new StockTransactionDTO();
+		sale.setSku("W-1");
+		sale.setTransactionType("SALE");
+		sale.setQuantity(-3);
+		FieldSelection selection = FieldSelection.parse("transactionType,quantity", StockTransactionDTO.class);
+
+		assertThat(FieldSelection.apply(selection, List.of(sale)))
+				.isEqualTo(List.of(Map.of("transactionType", "SALE", "quantity", -3)));
+	}
+
+	@Test
+	void unknownFieldsAreRejected() {
+		assertThatThrownBy(() -> FieldSelection.parse("sku,price", ProductDTO.class))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageStartingWith("Unknown field 'price'");
+		// getClass() is not a property of the DTO
+		assertThatThrownBy(() -> FieldSelection.parse("class", StockTransactionDTO.class))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void withoutFieldsTheRowsAreReturnedUntouched() {
+		List<ProductDTO> rows = List.of(widget);
+
+		assertThat(FieldSelection.parse(null, ProductDTO.class)).isNull();
+		assertThat(FieldSelection.parse("  ", ProductDTO.class)).isNull();
+		assertThat(FieldSelection.apply(null, rows)).isSameAs(rows);
+	}
+
+	@Test
+	void pagesKeepTheirMetadata() {
+		Page<ProductDTO> page = new PageImpl<>(List.of(widget), PageRequest.of(2, 1), 7);
+
+		Page<?> selected = FieldSelection.apply(FieldSelection.parse("name", ProductDTO.class), page);
+
+		assertThat(selected.getContent()).isEqualTo(List.of(Map.of("name", "Widget")));
+		assertThat(selected.getNumber()).isEqualTo(2);
+		assertThat(selected.getSize()).isEqualTo(1);
+		assertThat(selected.getTotalElements()).isEqualTo(7);
+		assertThat(selected.getTotalPages()).isEqualTo(7);
+	}
+}
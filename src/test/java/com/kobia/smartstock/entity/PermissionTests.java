@@ -0,0 +1,56 @@
+package com.kobia.smartstock.entity;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PermissionTests {
+
+	@Test
+	void maskRoundTripsEveryPermission() {
+		List<String> all = Arrays.stream(Permission.values()).map(Permission::name).toList();
+
+		long mask = Permission.maskOf(all);
+
+		assertThat(Long.bitCount(mask)).isEqualTo(all.size());
+		assertThat(Permission.namesOf(mask)).containsExactlyElementsOf(all);
+		for (Permission permission : Permission.values()) {
+			assertThat(Permission.namesOf(Permission.maskOf(List.of(permission.name())))).containsExactly(permission.name());
+		}
+	}
+
+	// Stored masks depend on these bits (V3 migrated user_permissions with them), so they must never move
+	@Test
+	void bitsMatchTheStoredMasks() {
+		assertThat(Permission.PENDING_APPROVAL.bit()).isEqualTo(1);
+		assertThat(Permission.PROCESS_SALE.bit()).isEqualTo(8);
+		assertThat(Permission.READ_CHANGE_EVENTS.bit()).isEqualTo(2048);
+		assertThat(Permission.VIEW_SYSTEM_METRICS.bit()).isEqualTo(4096);
+	}
+
+	@Test
+	void unknownNamesAreRejectedAndUnknownBitsIgnored() {
+		assertThatThrownBy(() -> Permission.maskOf(List.of("VIEW_INVENTORY", "BOGUS")))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("BOGUS");
+		assertThat(Permission.find("BOGUS")).isNull();
+		assertThat(Permission.namesOf(Permission.VIEW_INVENTORY.bit() | 1L << 62)).containsExactly("VIEW_INVENTORY");
+	}
+
+	@Test
+	void userPermissionSetWritesThroughToTheMask() {
+		User user = new User();
+		user.setPermissions(Set.of("VIEW_INVENTORY", "PROCESS_SALE"));
+		assertThat(user.getPermissionMask()).isEqualTo(Permission.VIEW_INVENTORY.bit() | Permission.PROCESS_SALE.bit());
+
+		user.getPermissions().remove("PROCESS_SALE");
+		user.getPermissions().add("MANAGE_INVENTORY");
+		assertThat(user.getPermissions()).containsExactlyInAnyOrder("VIEW_INVENTORY", "MANAGE_INVENTORY");
+		assertThat(user.hasPermission(Permission.PROCESS_SALE)).isFalse();
+	}
+}
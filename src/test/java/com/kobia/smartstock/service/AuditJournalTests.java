@@ -0,0 +1,40 @@
+package com.kobia.smartstock.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AuditJournalTests {
+
+	@TempDir
+	Path journalDir;
+
+	@Test
+	void replaySkipsRecordsVoidedByARollbackMarker() throws Exception {
+		long segment;
+		try (AuditJournal journal = new AuditJournal(journalDir)) {
+			segment = journal.currentSegment();
+			List<AuditRecord> appended = journal.appendAll(List.of(sale(1L), sale(2L), sale(3L)));
+			AuditRecord marker = journal.appendRollback(appended.get(1));
+
+			assertThat(marker.isRolledBack()).isTrue();
+			assertThat(marker.journalStart()).isEqualTo(appended.get(2).journalEnd());
+			assertThat(marker.journalEnd()).isEqualTo(journal.currentSize());
+		}
+
+		try (AuditJournal reopened = new AuditJournal(journalDir)) {
+			assertThat(reopened.readSegment(segment))
+					.extracting(AuditRecord::productId)
+					.containsExactly(1L, 3L);
+		}
+	}
+
+	private static AuditRecord sale(long productId) {
+		return new AuditRecord(productId, 7L, null, "SALE", -1, "Point of Sale transaction", LocalDateTime.now(), -1, -1);
+	}
+}
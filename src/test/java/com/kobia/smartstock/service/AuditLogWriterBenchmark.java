@@ -0,0 +1,135 @@
+package com.kobia.smartstock.service;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Compares the synchronous audit insert with the journaled, batched writer under concurrent tills.
+// Run with: ./mvnw test -Pbenchmark
+// Embedded H2 doesn't fsync on commit, which flatters the synchronous path; for representative numbers
+// point it at Postgres with -Dbenchmark.jdbc-url=... -Dbenchmark.username=... -Dbenchmark.password=...
+@Tag("benchmark")
+class AuditLogWriterBenchmark {
+
+	private static final int THREADS = 8;
+	private static final int SALES_PER_THREAD = 5_000;
+
+	@TempDir
+	Path journalDir;
+
+	private HikariDataSource dataSource;
+	private JdbcTemplate jdbcTemplate;
+	private DataSourceTransactionManager transactionManager;
+
+	@BeforeEach
+	void createSchema() {
+		dataSource = new HikariDataSource();
+		dataSource.setJdbcUrl(System.getProperty("benchmark.jdbc-url", "jdbc:h2:file:" + journalDir.resolve("bench-db") + ";MODE=PostgreSQL"));
+		dataSource.setUsername(System.getProperty("benchmark.username", "sa"));
+		dataSource.setPassword(System.getProperty("benchmark.password", ""));
+		dataSource.setMaximumPoolSize(THREADS + 2);
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		transactionManager = new DataSourceTransactionManager(dataSource);
+		jdbcTemplate.execute("DROP TABLE IF EXISTS stock_transactions");
+		jdbcTemplate.execute("DROP TABLE IF EXISTS audit_persisted_ranges");
+		jdbcTemplate.execute("DROP TABLE IF EXISTS audit_journal_checkpoints");
+		jdbcTemplate.execute("DROP TABLE IF EXISTS outbox_events");
+		jdbcTemplate.execute("CREATE TABLE stock_transactions (id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, product_id BIGINT NOT NULL, "
+				+ "user_id BIGINT NOT NULL, location_id BIGINT, transaction_type VARCHAR(255) NOT NULL, quantity INT NOT NULL, "
+				+ "notes VARCHAR(255), transaction_date TIMESTAMP NOT NULL)");
+		jdbcTemplate.execute("CREATE TABLE audit_journal_checkpoints (journal_id VARCHAR(36) PRIMARY KEY, "
+				+ "segment BIGINT NOT NULL, watermark BIGINT NOT NULL)");
+		jdbcTemplate.execute("CREATE TABLE audit_persisted_ranges (journal_id VARCHAR(36) NOT NULL, start_offset BIGINT NOT NULL, "
+				+ "end_offset BIGINT NOT NULL, PRIMARY KEY (journal_id, start_offset))");
+		jdbcTemplate.execute("CREATE TABLE outbox_events (id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, "
+				+ "aggregate_type VARCHAR(255) NOT NULL, aggregate_id BIGINT NOT NULL, event_type VARCHAR(255) NOT NULL, "
+				+ "payload VARCHAR(4000) NOT NULL, created_at TIMESTAMP NOT NULL)");
+	}
+
+	@AfterEach
+	void closeDataSource() {
+		dataSource.close();
+	}
+
+	@Test
+	void synchronousVersusJournaledWriter() throws Exception {
+		TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+		OutboxPublisher outbox = new OutboxPublisher(null, jdbcTemplate, JsonMapper.builder().build(), 7);
+		Result sync = run("synchronous insert", record -> transactionTemplate.executeWithoutResult(status -> {
+			jdbcTemplate.update(AuditLogWriter.INSERT_SQL, record.productId(), record.userId(), record.locationId(),
+					record.transactionType(), record.quantity(), record.notes(), Timestamp.valueOf(record.transactionDate()));
+			outbox.stockRecorded(List.of(record));
+		}));
+
+		AuditLogWriter writer = new AuditLogWriter(null, outbox, jdbcTemplate, transactionManager, "journal",
+				journalDir.resolve("journal").toString(), 8192, 500);
+		writer.start();
+		Result journaled = run("journal + batch writer", writer::enqueue);
+		long drainStart = System.nanoTime();
+		while (writer.getRecordsWritten() < (long) THREADS * SALES_PER_THREAD) {
+			Thread.sleep(1);
+		}
+		long drainMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - drainStart);
+		writer.stop();
+
+		System.out.printf("%-24s %10s %10s %10s%n", "path", "ops/s", "p50 us", "p99 us");
+		for (Result result : new Result[]{sync, journaled}) {
+			System.out.printf("%-24s %10.0f %10.1f %10.1f%n", result.name, result.throughput, result.p50Micros, result.p99Micros);
+		}
+		System.out.printf("batch writer caught up %d ms after the last sale, %d backpressure waits%n",
+				drainMillis, writer.getBackpressureWaits());
+
+		assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM stock_transactions", Long.class))
+				.isEqualTo(2L * THREADS * SALES_PER_THREAD);
+	}
+
+	private Result run(String name, Consumer<AuditRecord> audit) throws InterruptedException {
+		long[] latencies = new long[THREADS * SALES_PER_THREAD];
+		ExecutorService tills = Executors.newFixedThreadPool(THREADS);
+		CountDownLatch done = new CountDownLatch(THREADS);
+		long start = System.nanoTime();
+		for (int t = 0; t < THREADS; t++) {
+			int till = t;
+			tills.execute(() -> {
+				for (int i = 0; i < SALES_PER_THREAD; i++) {
+					AuditRecord record = new AuditRecord((long) (i % 500), (long) till, null, "SALE", -1,
+							"Point of Sale transaction", LocalDateTime.now(), -1, -1);
+					long before = System.nanoTime();
+					audit.accept(record);
+					latencies[till * SALES_PER_THREAD + i] = System.nanoTime() - before;
+				}
+				done.countDown();
+			});
+		}
+		done.await();
+		long elapsed = System.nanoTime() - start;
+		tills.shutdown();
+
+		Arrays.sort(latencies);
+		return new Result(name, latencies.length / (elapsed / 1e9),
+				latencies[latencies.length / 2] / 1e3, latencies[(int) (latencies.length * 0.99)] / 1e3);
+	}
+
+	private record Result(String name, double throughput, double p50Micros, double p99Micros) {
+	}
+}
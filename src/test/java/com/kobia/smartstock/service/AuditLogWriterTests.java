@@ -0,0 +1,167 @@
+package com.kobia.smartstock.service;
+
+import com.kobia.smartstock.entity.Product;
+import com.kobia.smartstock.entity.User;
+import com.kobia.smartstock.repository.ProductRepository;
+import com.kobia.smartstock.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+		"smartstock.inventory.aggregate-flush-ms=3600000",
+		"smartstock.outbox.sequence-ms=3600000"
+})
+class AuditLogWriterTests {
+
+	@Autowired
+	OutboxPublisher outboxPublisher;
+
+	@Autowired
+	ProductRepository productRepository;
+
+	@Autowired
+	UserRepository userRepository;
+
+	@Autowired
+	JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	PlatformTransactionManager transactionManager;
+
+	@TempDir
+	Path nodeA;
+
+	@TempDir
+	Path nodeB;
+
+	Product product;
+	User clerk;
+
+	@BeforeEach
+	void setUp() {
+		String suffix = UUID.randomUUID().toString().substring(0, 8);
+		Product created = new Product();
+		created.setSku("AUD-" + suffix);
+		created.setName("Product " + suffix);
+		created.setUnitPrice(1.0);
+		product = productRepository.save(created);
+
+		User user = new User();
+		user.setUsername("till-" + suffix);
+		user.setEmail("till-" + suffix + "@example.com");
+		user.setPassword("secret");
+		clerk = userRepository.save(user);
+	}
+
+	@Test
+	void rangesPersistedOutOfOrderAreMerged() {
+		AuditLogWriter.JournalProgress progress = new AuditLogWriter.JournalProgress();
+
+		progress.markPersisted(List.of(range(40, 50), range(20, 30), range(30, 40)));
+		assertThat(progress.watermark).isZero();
+		assertThat(progress.ahead).containsExactly(Map.entry(20L, 50L));
+
+		progress.markPersisted(List.of(range(60, 70), range(50, 60)));
+		assertThat(progress.ahead).containsExactly(Map.entry(20L, 70L));
+
+		progress.markPersisted(List.of(range(0, 20)));
+		assertThat(progress.watermark).isEqualTo(70);
+		assertThat(progress.ahead).isEmpty();
+	}
+
+	@Test
+	void eachJournalKeepsItsOwnCheckpoint() throws Exception {
+		AuditLogWriter first = writer(nodeA);
+		AuditLogWriter second = writer(nodeB);
+		first.start();
+		second.start();
+		for (int i = 0; i < 3; i++) {
+			first.enqueue(sale());
+		}
+		for (int i = 0; i < 2; i++) {
+			second.enqueue(sale());
+		}
+		await(() -> first.getRecordsWritten() == 3 && second.getRecordsWritten() == 2);
+		first.stop();
+		second.stop();
+
+		String firstId = Files.readString(nodeA.resolve("journal.id"));
+		String secondId = Files.readString(nodeB.resolve("journal.id"));
+		assertThat(firstId).isNotEqualTo(secondId);
+		assertThat(checkpointedJournals()).contains(firstId, secondId);
+
+		// Node B dies with one record journaled but not yet in the database
+		try (AuditJournal journal = new AuditJournal(nodeB)) {
+			journal.append(sale());
+		}
+
+		writer(nodeA).start();
+		assertThat(auditRows()).isEqualTo(5);
+		writer(nodeB).start();
+		assertThat(auditRows()).isEqualTo(6);
+	}
+
+	@Test
+	void recordTheDatabaseRejectsIsSkippedWithoutWedgingTheWriter() throws Exception {
+		AuditLogWriter writer = writer(nodeA);
+		writer.start();
+		writer.enqueue(sale());
+		writer.enqueue(new AuditRecord(-1L, clerk.getId(), null, "SALE", -1, "Unknown product",
+				LocalDateTime.now(), -1, -1));
+		writer.enqueue(sale());
+		await(() -> writer.getRecordsWritten() + writer.getRecordsRejected() == 3);
+		writer.stop();
+
+		assertThat(writer.getRecordsWritten()).isEqualTo(2);
+		assertThat(writer.getRecordsRejected()).isEqualTo(1);
+		assertThat(auditRows()).isEqualTo(2);
+		assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM outbox_events WHERE event_type = 'STOCK_RECORDED' "
+				+ "AND aggregate_id = -1", Integer.class)).isZero();
+	}
+
+	private AuditLogWriter writer(Path journalDir) {
+		return new AuditLogWriter(null, outboxPublisher, jdbcTemplate, transactionManager, "journal",
+				journalDir.toString(), 64, 10);
+	}
+
+	private AuditRecord sale() {
+		return new AuditRecord(product.getId(), clerk.getId(), null, "SALE", -1, "Point of Sale transaction",
+				LocalDateTime.now(), -1, -1);
+	}
+
+	private static AuditRecord range(long start, long end) {
+		return new AuditRecord(1L, 1L, null, "SALE", -1, null, LocalDateTime.now(), start, end);
+	}
+
+	private List<String> checkpointedJournals() {
+		return jdbcTemplate.queryForList("SELECT journal_id FROM audit_journal_checkpoints", String.class);
+	}
+
+	private int auditRows() {
+		return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM stock_transactions WHERE product_id = ?",
+				Integer.class, product.getId());
+	}
+
+	private static void await(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 10_000;
+		while (!condition.getAsBoolean()) {
+			assertThat(System.currentTimeMillis()).as("timed out waiting for the audit writer").isLessThan(deadline);
+			Thread.sleep(10);
+		}
+	}
+}
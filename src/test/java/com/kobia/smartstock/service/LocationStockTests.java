@@ -0,0 +1,218 @@
+package com.kobia.smartstock.service;
+
+import com.kobia.smartstock.config.JwtUtil;
+import com.kobia.smartstock.entity.Location;
+import com.kobia.smartstock.entity.Permission;
+import com.kobia.smartstock.entity.Product;
+import com.kobia.smartstock.entity.User;
+import com.kobia.smartstock.repository.LocationRepository;
+import com.kobia.smartstock.repository.LocationStockRepository;
+import com.kobia.smartstock.repository.ProductRepository;
+import com.kobia.smartstock.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// The scheduled flush is pushed out of the way so the tests see the pending deltas and run it by hand
+@SpringBootTest(properties = {
+		"smartstock.inventory.aggregate-flush-ms=3600000",
+		"smartstock.outbox.sequence-ms=3600000"
+})
+@AutoConfigureMockMvc
+class LocationStockTests {
+
+	@Autowired
+	MockMvc mockMvc;
+
+	@Autowired
+	JwtUtil jwtUtil;
+
+	@Autowired
+	LocationService locationService;
+
+	@Autowired
+	GlobalStockAggregator globalStockAggregator;
+
+	@Autowired
+	LocationRepository locationRepository;
+
+	@Autowired
+	LocationStockRepository locationStockRepository;
+
+	@Autowired
+	ProductRepository productRepository;
+
+	@Autowired
+	UserRepository userRepository;
+
+	@Autowired
+	PlatformTransactionManager transactionManager;
+
+	@Autowired
+	JdbcTemplate jdbcTemplate;
+
+	String suffix;
+
+	@BeforeEach
+	void setUp() {
+		suffix = UUID.randomUUID().toString().substring(0, 8);
+	}
+
+	@Test
+	void saleAtOneLocationLeavesTheOtherUntouched() throws Exception {
+		Product product = product(17);
+		Location storeA = location("A");
+		Location storeB = location("B");
+		stock(storeA, product, 10);
+		stock(storeB, product, 7);
+
+		mockMvc.perform(post("/api/inventory/sale")
+						.header("Authorization", "Bearer " + token(Permission.PROCESS_SALE))
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"sku\":\"" + product.getSku() + "\",\"quantity\":3,\"location\":\"" + storeA.getCode() + "\"}"))
+				.andExpect(status().isOk());
+
+		assertThat(quantity(storeA, product)).isEqualTo(7);
+		assertThat(quantity(storeB, product)).isEqualTo(7);
+		assertThat(pendingDeltas(product)).containsExactly(-3);
+	}
+
+	@Test
+	void flushAppliesAndDeletesOnlyTheDeltasItLocked() throws Exception {
+		Product product = product(20);
+		globalStockAggregator.record(product.getId(), 5);
+		globalStockAggregator.record(product.getId(), -2);
+
+		// A sale still in flight while the flush runs: its delta isn't committed, so the flush can't see it
+		CountDownLatch recorded = new CountDownLatch(1);
+		CountDownLatch flushed = new CountDownLatch(1);
+		CompletableFuture<Void> inFlight = CompletableFuture.runAsync(() ->
+				new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+					globalStockAggregator.record(product.getId(), 7);
+					recorded.countDown();
+					await(flushed);
+				}));
+		await(recorded);
+		globalStockAggregator.flush();
+		flushed.countDown();
+		inFlight.get(10, TimeUnit.SECONDS);
+
+		assertThat(currentStock(product)).isEqualTo(23);
+		assertThat(pendingDeltas(product)).containsExactly(7);
+
+		globalStockAggregator.flush();
+		assertThat(currentStock(product)).isEqualTo(30);
+		assertThat(pendingDeltas(product)).isEmpty();
+	}
+
+	@Test
+	void rolledBackCallerLeavesNoDelta() {
+		Product product = product(5);
+
+		new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+			globalStockAggregator.record(product.getId(), -4);
+			status.setRollbackOnly();
+		});
+
+		assertThat(pendingDeltas(product)).isEmpty();
+		globalStockAggregator.flush();
+		assertThat(currentStock(product)).isEqualTo(5);
+	}
+
+	@Test
+	void seedingTheDefaultLocationIsIdempotent() {
+		Product product = product(12);
+		String code = "SEED-" + suffix;
+		LocationService seeding = new LocationService(locationRepository, locationStockRepository, productRepository,
+				transactionManager, code);
+
+		seeding.seedDefaultLocation();
+		Location seeded = seeding.resolve(null);
+		int rows = stockRows(seeded);
+		assertThat(rows).isEqualTo(productRepository.count());
+		assertThat(quantity(seeded, product)).isEqualTo(12);
+
+		seeding.seedDefaultLocation();
+		assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM locations WHERE code = ?", Integer.class, code))
+				.isEqualTo(1);
+		assertThat(stockRows(seeded)).isEqualTo(rows);
+		assertThat(quantity(seeded, product)).isEqualTo(12);
+	}
+
+	private String token(Permission permission) {
+		User user = new User();
+		user.setUsername("till-" + suffix);
+		user.setEmail("till-" + suffix + "@example.com");
+		user.setPassword("secret");
+		user.setPermissionMask(permission.bit());
+		User saved = userRepository.save(user);
+		return jwtUtil.generateToken(saved.getUsername(), saved.getPermissionMask(), saved.getTokenVersion());
+	}
+
+	private Product product(int currentStock) {
+		Product product = new Product();
+		product.setSku("LOC-" + UUID.randomUUID().toString().substring(0, 8));
+		product.setName("Product " + product.getSku());
+		product.setUnitPrice(1.0);
+		product.setCurrentStock(currentStock);
+		return productRepository.save(product);
+	}
+
+	private Location location(String name) {
+		Location location = new Location();
+		location.setCode("STORE-" + name + "-" + suffix);
+		location.setName("Store " + name);
+		return locationRepository.save(location);
+	}
+
+	private void stock(Location location, Product product, int quantity) {
+		locationService.ensureStockRow(location, product);
+		jdbcTemplate.update("UPDATE location_stock SET quantity = ? WHERE location_id = ? AND product_id = ?",
+				quantity, location.getId(), product.getId());
+	}
+
+	private Integer quantity(Location location, Product product) {
+		return jdbcTemplate.queryForObject("SELECT quantity FROM location_stock WHERE location_id = ? AND product_id = ?",
+				Integer.class, location.getId(), product.getId());
+	}
+
+	private int stockRows(Location location) {
+		return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM location_stock WHERE location_id = ?",
+				Integer.class, location.getId());
+	}
+
+	private int currentStock(Product product) {
+		return jdbcTemplate.queryForObject("SELECT current_stock FROM products WHERE id = ?", Integer.class, product.getId());
+	}
+
+	private List<Integer> pendingDeltas(Product product) {
+		return jdbcTemplate.queryForList("SELECT delta FROM pending_stock_deltas WHERE product_id = ?",
+				Integer.class, product.getId());
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(ex);
+		}
+	}
+}
@@ -0,0 +1,99 @@
+package com.kobia.smartstock.service;
+
+import com.kobia.smartstock.entity.Product;
+import com.kobia.smartstock.entity.User;
+import com.kobia.smartstock.repository.ProductRepository;
+import com.kobia.smartstock.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+		"smartstock.inventory.aggregate-flush-ms=3600000",
+		"smartstock.outbox.sequence-ms=3600000"
+})
+class LookupCacheTests {
+
+	@Autowired
+	LookupCache lookupCache;
+
+	@Autowired
+	ProductRepository productRepository;
+
+	@Autowired
+	UserRepository userRepository;
+
+	@Autowired
+	EntityManager entityManager;
+
+	@Autowired
+	PlatformTransactionManager transactionManager;
+
+	@Autowired
+	JdbcTemplate jdbcTemplate;
+
+	@Test
+	void valuesCachedDuringARequestAreNotPartOfItsPersistenceContext() {
+		String suffix = UUID.randomUUID().toString().substring(0, 8);
+		Product product = product(suffix);
+		User user = user(suffix);
+
+		// The first request misses, so the lookups load inside its transaction
+		new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+			Product cachedProduct = lookupCache.product(product.getSku()).orElseThrow();
+			User cachedUser = lookupCache.user(user.getUsername()).orElseThrow();
+			assertThat(entityManager.contains(cachedProduct)).isFalse();
+			assertThat(entityManager.contains(cachedUser)).isFalse();
+
+			// Were they managed here, this request's commit would write these for everyone
+			cachedProduct.setName("Renamed in one request");
+			cachedUser.setEmail("renamed-" + suffix + "@example.com");
+		});
+
+		assertThat(jdbcTemplate.queryForObject("SELECT name FROM products WHERE id = ?", String.class, product.getId()))
+				.isEqualTo("Product " + suffix);
+		assertThat(jdbcTemplate.queryForObject("SELECT email FROM users WHERE id = ?", String.class, user.getId()))
+				.isEqualTo("cache-" + suffix + "@example.com");
+	}
+
+	@Test
+	void loadingIntoTheCacheLeavesTheCallersOwnInstanceManaged() {
+		String suffix = UUID.randomUUID().toString().substring(0, 8);
+		Product product = product(suffix);
+
+		new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+			Product managed = productRepository.findBySku(product.getSku()).orElseThrow();
+			Product cached = lookupCache.product(product.getSku()).orElseThrow();
+
+			assertThat(cached).isNotSameAs(managed);
+			assertThat(entityManager.contains(managed)).isTrue();
+			managed.setReorderPoint(3);
+		});
+
+		assertThat(productRepository.findById(product.getId()).orElseThrow().getReorderPoint()).isEqualTo(3);
+	}
+
+	private Product product(String suffix) {
+		Product product = new Product();
+		product.setSku("CACHE-" + suffix);
+		product.setName("Product " + suffix);
+		product.setUnitPrice(1.0);
+		return productRepository.save(product);
+	}
+
+	private User user(String suffix) {
+		User user = new User();
+		user.setUsername("cache-" + suffix);
+		user.setEmail("cache-" + suffix + "@example.com");
+		user.setPassword("secret");
+		return userRepository.save(user);
+	}
+}
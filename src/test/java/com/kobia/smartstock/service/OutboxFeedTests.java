@@ -0,0 +1,173 @@
+package com.kobia.smartstock.service;
+
+import com.kobia.smartstock.config.JwtUtil;
+import com.kobia.smartstock.entity.Permission;
+import com.kobia.smartstock.entity.User;
+import com.kobia.smartstock.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// The scheduled sequencer is pushed out of the way so the tests decide when events get their seq
+@SpringBootTest(properties = {
+		"smartstock.inventory.aggregate-flush-ms=3600000",
+		"smartstock.outbox.sequence-ms=3600000"
+})
+@AutoConfigureMockMvc
+class OutboxFeedTests {
+
+	@Autowired
+	MockMvc mockMvc;
+
+	@Autowired
+	JwtUtil jwtUtil;
+
+	@Autowired
+	OutboxPublisher outboxPublisher;
+
+	@Autowired
+	OutboxSequencer outboxSequencer;
+
+	@Autowired
+	UserRepository userRepository;
+
+	@Autowired
+	PlatformTransactionManager transactionManager;
+
+	@Autowired
+	JdbcTemplate jdbcTemplate;
+
+	@Test
+	void eventsAreSequencedInCommitOrder() throws Exception {
+		long slow = aggregateId();
+		long fast = aggregateId();
+
+		// The slow transaction inserts first, so it has the lower id, but commits last
+		CountDownLatch inserted = new CountDownLatch(1);
+		CountDownLatch sequenced = new CountDownLatch(1);
+		CompletableFuture<Void> slowTransaction = CompletableFuture.runAsync(() ->
+				new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+					outboxPublisher.productStockAdjusted(slow, 1);
+					inserted.countDown();
+					await(sequenced);
+				}));
+		await(inserted);
+		publish(fast);
+		outboxSequencer.sequence();
+		sequenced.countDown();
+		slowTransaction.get(10, TimeUnit.SECONDS);
+
+		assertThat(seqOf(slow)).isNull();
+		outboxSequencer.sequence();
+
+		assertThat(idOf(slow)).isLessThan(idOf(fast));
+		assertThat(seqOf(slow)).isGreaterThan(seqOf(fast));
+	}
+
+	@Test
+	void unsequencedEventsAreNotServed() throws Exception {
+		outboxSequencer.sequence();
+		long cursor = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(seq), 0) FROM outbox_events", Long.class);
+		long aggregateId = aggregateId();
+		publish(aggregateId);
+		String token = token();
+
+		feed(token, cursor)
+				.andExpect(jsonPath("$.events[*].aggregateId", not(hasItem(aggregateId))))
+				.andExpect(jsonPath("$.nextAfter").value(cursor));
+
+		outboxSequencer.sequence();
+		feed(token, cursor)
+				.andExpect(jsonPath("$.events[*].aggregateId", hasItem(aggregateId)));
+	}
+
+	@Test
+	void purgedEventsAfterTheCursorAreReportedAsAGap() throws Exception {
+		jdbcTemplate.update("DELETE FROM outbox_events");
+		LocalDateTime expired = LocalDateTime.now().minusDays(30);
+		for (int i = 0; i < 3; i++) {
+			jdbcTemplate.update("INSERT INTO outbox_events (aggregate_type, aggregate_id, event_type, payload, created_at) "
+					+ "VALUES ('PRODUCT', ?, 'PRODUCT_STOCK_ADJUSTED', '{}', ?)", aggregateId(), Timestamp.valueOf(expired));
+		}
+		publish(aggregateId());
+		outboxSequencer.sequence();
+		long firstExpired = jdbcTemplate.queryForObject("SELECT MIN(seq) FROM outbox_events", Long.class);
+		long lastExpired = firstExpired + 2;
+		String token = token();
+		feed(token, firstExpired).andExpect(jsonPath("$.gap").value(false));
+
+		outboxPublisher.purgeExpired();
+
+		// A consumer that had read only the first expired event missed the other two
+		feed(token, firstExpired).andExpect(jsonPath("$.gap").value(true));
+		// One that had read all of them missed nothing
+		feed(token, lastExpired)
+				.andExpect(jsonPath("$.gap").value(false))
+				.andExpect(jsonPath("$.events.length()").value(1));
+	}
+
+	private ResultActions feed(String token, long after) throws Exception {
+		return mockMvc.perform(get("/api/events")
+						.param("after", String.valueOf(after))
+						.header("Authorization", "Bearer " + token))
+				.andExpect(status().isOk());
+	}
+
+	private void publish(long aggregateId) {
+		new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+				outboxPublisher.productStockAdjusted(aggregateId, 1));
+	}
+
+	private Long idOf(long aggregateId) {
+		return jdbcTemplate.queryForObject("SELECT id FROM outbox_events WHERE aggregate_id = ?", Long.class, aggregateId);
+	}
+
+	private Long seqOf(long aggregateId) {
+		return jdbcTemplate.queryForObject("SELECT seq FROM outbox_events WHERE aggregate_id = ?", Long.class, aggregateId);
+	}
+
+	private String token() {
+		String suffix = UUID.randomUUID().toString().substring(0, 8);
+		User user = new User();
+		user.setUsername("feed-" + suffix);
+		user.setEmail("feed-" + suffix + "@example.com");
+		user.setPassword("secret");
+		user.setPermissionMask(Permission.READ_CHANGE_EVENTS.bit());
+		User saved = userRepository.save(user);
+		return jwtUtil.generateToken(saved.getUsername(), saved.getPermissionMask(), saved.getTokenVersion());
+	}
+
+	private static long aggregateId() {
+		return ThreadLocalRandom.current().nextLong(1_000_000_000L, Long.MAX_VALUE);
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(ex);
+		}
+	}
+}
@@ -0,0 +1,201 @@
+package com.kobia.smartstock.service;
+
+import com.kobia.smartstock.dto.ReceiveDeliveryRequest;
+import com.kobia.smartstock.entity.Location;
+import com.kobia.smartstock.entity.Product;
+import com.kobia.smartstock.entity.PurchaseOrder;
+import com.kobia.smartstock.entity.User;
+import com.kobia.smartstock.repository.LocationRepository;
+import com.kobia.smartstock.repository.ProductRepository;
+import com.kobia.smartstock.repository.PurchaseOrderRepository;
+import com.kobia.smartstock.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// The scheduled flush and sequencer are pushed out of the way so the tests see the pending rows and run both by hand
+@SpringBootTest(properties = {
+		"smartstock.inventory.aggregate-flush-ms=3600000",
+		"smartstock.outbox.sequence-ms=3600000"
+})
+class PurchaseOrderServiceTests {
+
+	@Autowired
+	PurchaseOrderService purchaseOrderService;
+
+	@Autowired
+	GlobalStockAggregator globalStockAggregator;
+
+	@Autowired
+	OutboxSequencer outboxSequencer;
+
+	@Autowired
+	PurchaseOrderRepository purchaseOrderRepository;
+
+	@Autowired
+	ProductRepository productRepository;
+
+	@Autowired
+	LocationRepository locationRepository;
+
+	@Autowired
+	UserRepository userRepository;
+
+	@Autowired
+	JdbcTemplate jdbcTemplate;
+
+	User clerk;
+	Location location;
+
+	@BeforeEach
+	void setUp() {
+		String suffix = UUID.randomUUID().toString().substring(0, 8);
+		clerk = new User();
+		clerk.setUsername("clerk-" + suffix);
+		clerk.setEmail("clerk-" + suffix + "@example.com");
+		clerk.setPassword("secret");
+		clerk = userRepository.save(clerk);
+
+		location = new Location();
+		location.setCode("STORE-" + suffix);
+		location.setName("Store " + suffix);
+		location = locationRepository.save(location);
+	}
+
+	@Test
+	void invalidLineRollsBackTheWholeDelivery() {
+		Product product = product();
+		PurchaseOrder valid = order(product, 10, "APPROVED");
+		PurchaseOrder pending = order(product, 10, "PENDING");
+
+		assertThatThrownBy(() -> purchaseOrderService.receive(delivery(
+				new ReceiveDeliveryRequest.Line(valid.getId(), 5),
+				new ReceiveDeliveryRequest.Line(pending.getId(), 5)), clerk))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("PENDING");
+
+		PurchaseOrder reloaded = purchaseOrderRepository.findById(valid.getId()).orElseThrow();
+		assertThat(reloaded.getStatus()).isEqualTo("APPROVED");
+		assertThat(reloaded.getQuantityReceived()).isZero();
+		assertThat(locationQuantity(product)).isNull();
+		assertThat(pendingDeltas(product)).isEmpty();
+		assertThat(restockRows(product)).isZero();
+	}
+
+	@Test
+	void partialThenCompletingReceiptDeliversTheOrder() {
+		Product product = product();
+		PurchaseOrder po = order(product, 10, "APPROVED");
+
+		purchaseOrderService.receive(delivery(new ReceiveDeliveryRequest.Line(po.getId(), 4)), clerk);
+		PurchaseOrder partial = purchaseOrderRepository.findById(po.getId()).orElseThrow();
+		assertThat(partial.getStatus()).isEqualTo("PARTIALLY_DELIVERED");
+		assertThat(partial.getQuantityReceived()).isEqualTo(4);
+
+		purchaseOrderService.receive(delivery(new ReceiveDeliveryRequest.Line(po.getId(), 6)), clerk);
+		PurchaseOrder delivered = purchaseOrderRepository.findById(po.getId()).orElseThrow();
+		assertThat(delivered.getStatus()).isEqualTo("DELIVERED");
+		assertThat(delivered.getQuantityReceived()).isEqualTo(10);
+		assertThat(locationQuantity(product)).isEqualTo(10);
+		assertThat(restockRows(product)).isEqualTo(2);
+	}
+
+	@Test
+	void overReceiptIsRejected() {
+		Product product = product();
+		PurchaseOrder po = order(product, 10, "APPROVED");
+		purchaseOrderService.receive(delivery(new ReceiveDeliveryRequest.Line(po.getId(), 6)), clerk);
+
+		assertThatThrownBy(() -> purchaseOrderService.receive(delivery(
+				new ReceiveDeliveryRequest.Line(po.getId(), 3),
+				new ReceiveDeliveryRequest.Line(po.getId(), 2)), clerk))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("only 4 units outstanding");
+
+		PurchaseOrder reloaded = purchaseOrderRepository.findById(po.getId()).orElseThrow();
+		assertThat(reloaded.getQuantityReceived()).isEqualTo(6);
+		assertThat(locationQuantity(product)).isEqualTo(6);
+	}
+
+	@Test
+	void approveOnlyMovesPendingOrders() {
+		PurchaseOrder po = order(product(), 10, "PENDING");
+
+		assertThat(purchaseOrderService.approve(po.getId(), clerk)).isTrue();
+		assertThat(purchaseOrderService.approve(po.getId(), clerk)).isFalse();
+		assertThat(purchaseOrderRepository.findById(po.getId()).orElseThrow().getStatus()).isEqualTo("APPROVED");
+	}
+
+	@Test
+	void linesForTheSameStockRowAreCoalescedAndFlushed() {
+		Product product = product();
+		PurchaseOrder first = order(product, 10, "APPROVED");
+		PurchaseOrder second = order(product, 20, "APPROVED");
+
+		purchaseOrderService.receive(delivery(
+				new ReceiveDeliveryRequest.Line(first.getId(), 3),
+				new ReceiveDeliveryRequest.Line(second.getId(), 7)), clerk);
+
+		assertThat(pendingDeltas(product)).containsExactly(10);
+		assertThat(locationQuantity(product)).isEqualTo(10);
+		assertThat(restockRows(product)).isEqualTo(2);
+
+		globalStockAggregator.flush();
+		assertThat(pendingDeltas(product)).isEmpty();
+		assertThat(productRepository.findById(product.getId()).orElseThrow().getCurrentStock()).isEqualTo(10);
+
+		outboxSequencer.sequence();
+		assertThat(jdbcTemplate.queryForList("SELECT seq FROM outbox_events WHERE event_type = 'PRODUCT_STOCK_ADJUSTED' "
+				+ "AND aggregate_id = ?", Long.class, product.getId()))
+				.hasSize(1)
+				.doesNotContainNull();
+	}
+
+	private Product product() {
+		String sku = "PO-" + UUID.randomUUID().toString().substring(0, 8);
+		Product product = new Product();
+		product.setSku(sku);
+		product.setName("Product " + sku);
+		product.setUnitPrice(1.0);
+		return productRepository.save(product);
+	}
+
+	private PurchaseOrder order(Product product, int quantity, String status) {
+		PurchaseOrder po = new PurchaseOrder();
+		po.setProduct(product);
+		po.setGeneratedBy(clerk);
+		po.setLocation(location);
+		po.setQuantityOrdered(quantity);
+		po.setStatus(status);
+		return purchaseOrderRepository.save(po);
+	}
+
+	private static ReceiveDeliveryRequest delivery(ReceiveDeliveryRequest.Line... lines) {
+		return new ReceiveDeliveryRequest(List.of(lines), null);
+	}
+
+	private Integer locationQuantity(Product product) {
+		List<Integer> quantities = jdbcTemplate.queryForList(
+				"SELECT quantity FROM location_stock WHERE location_id = ? AND product_id = ?",
+				Integer.class, location.getId(), product.getId());
+		return quantities.isEmpty() ? null : quantities.get(0);
+	}
+
+	private List<Integer> pendingDeltas(Product product) {
+		return jdbcTemplate.queryForList("SELECT delta FROM pending_stock_deltas WHERE product_id = ?",
+				Integer.class, product.getId());
+	}
+
+	private int restockRows(Product product) {
+		return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM stock_transactions WHERE product_id = ? "
+				+ "AND transaction_type = 'RESTOCK'", Integer.class, product.getId());
+	}
+}
@@ -0,0 +1,43 @@
+package com.kobia.smartstock.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReorderSimulationTests {
+
+	@Test
+	void steadyDemandReordersJustAboveLeadTimeDemand() {
+		int[] history = new int[60];
+		Arrays.fill(history, 10);
+
+		ReorderSimulation.Policy policy = ForkJoinPool.commonPool().invoke(new ReorderSimulation(history,
+				new ReorderSimulation.Parameters(3, 90, 20, 0.999, 0.01, 50, 42)));
+
+		assertThat(policy.meetsTarget()).isTrue();
+		assertThat(policy.fillRate()).isEqualTo(1.0);
+		// Stock is checked once a day, so the order goes out anywhere up to one day's demand below the reorder point
+		assertThat(policy.reorderPoint()).isBetween(30, 39);
+	}
+
+	@Test
+	void higherServiceLevelNeedsMoreSafetyStock() {
+		int[] history = new int[90];
+		for (int day = 0; day < history.length; day++) {
+			history[day] = day % 7 == 0 ? 40 : day % 3; // weekly spikes over a low baseline
+		}
+
+		ReorderSimulation.Policy relaxed = ForkJoinPool.commonPool().invoke(new ReorderSimulation(history,
+				new ReorderSimulation.Parameters(5, 180, 200, 0.80, 0.05, 20, 7)));
+		ReorderSimulation.Policy strict = ForkJoinPool.commonPool().invoke(new ReorderSimulation(history,
+				new ReorderSimulation.Parameters(5, 180, 200, 0.99, 0.05, 20, 7)));
+
+		assertThat(relaxed.meetsTarget()).isTrue();
+		assertThat(strict.meetsTarget()).isTrue();
+		assertThat(strict.fillRate()).isGreaterThanOrEqualTo(0.99);
+		assertThat(strict.costPerDay()).isGreaterThan(relaxed.costPerDay());
+	}
+}
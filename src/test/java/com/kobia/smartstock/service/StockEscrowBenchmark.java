@@ -0,0 +1,201 @@
+package com.kobia.smartstock.service;
+
+import com.kobia.smartstock.entity.Location;
+import com.kobia.smartstock.entity.Product;
+import com.kobia.smartstock.entity.User;
+import com.kobia.smartstock.repository.LocationStockRepository;
+import com.kobia.smartstock.repository.ProductRepository;
+import com.kobia.smartstock.repository.StockShardRepository;
+import com.kobia.smartstock.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Many tills selling the same SKU at one location: the single location_stock row versus escrow shards.
+// Each sale is a transaction that takes the stock and writes its audit row, as /api/inventory/sale does,
+// so the row lock is held for the rest of the transaction.
+// Run with: ./mvnw test -Pbenchmark
+// Embedded H2 commits in microseconds, which hides most of the queueing; for representative numbers
+// run against Postgres with -Dspring.datasource.url=... (and the replica url) pointing at a scratch database.
+// H2's MVStore occasionally picks a deadlock victim among transactions that lock rows in the same order,
+// so a till retries a sale that was rolled back that way; the retries are counted and reported.
+@Tag("benchmark")
+@SpringBootTest
+class StockEscrowBenchmark {
+
+	private static final int THREADS = 16;
+	private static final int SALES_PER_THREAD = 2_000;
+	private static final int SHARDS = 16;
+
+	@Autowired
+	private ProductRepository productRepository;
+	@Autowired
+	private UserRepository userRepository;
+	@Autowired
+	private LocationStockRepository locationStockRepository;
+	@Autowired
+	private StockShardRepository stockShardRepository;
+	@Autowired
+	private LocationService locationService;
+	@Autowired
+	private StockEscrowService stockEscrowService;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private TransactionTemplate transactionTemplate;
+	private Location location;
+	private User till;
+
+	@BeforeEach
+	void setUp() {
+		transactionTemplate = new TransactionTemplate(transactionManager);
+		location = locationService.resolve(null);
+		till = userRepository.findByUsername("bench-till").orElseGet(() -> {
+			User user = new User();
+			user.setUsername("bench-till");
+			user.setEmail("bench-till@example.com");
+			user.setPassword("n/a");
+			return userRepository.save(user);
+		});
+	}
+
+	@Test
+	void singleRowVersusShardedEscrow() throws Exception {
+		int stock = THREADS * SALES_PER_THREAD;
+		Product single = createProduct("BENCH-SINGLE-" + System.nanoTime(), stock, 0);
+		Product hot = createProduct("BENCH-HOT-" + System.nanoTime(), stock, SHARDS);
+
+		Result singleRow = run("single location row", () ->
+				locationStockRepository.decrementIfAvailable(location.getId(), single.getId(), 1) == 1, single);
+		Result escrow = run("escrow, " + SHARDS + " shards", () ->
+				stockEscrowService.take(location, hot, 1), hot);
+
+		System.out.printf("%-24s %10s %10s %10s %8s %8s%n", "path", "sales/s", "p50 us", "p99 us", "sold", "retries");
+		for (Result result : new Result[]{singleRow, escrow}) {
+			System.out.printf("%-24s %10.0f %10.1f %10.1f %8d %8d%n",
+					result.name, result.throughput, result.p50Micros, result.p99Micros, result.sold, result.retries);
+		}
+		assertThat(singleRow.sold).isEqualTo(stock);
+		assertThat(escrow.sold).isEqualTo(stock);
+		assertThat(stockAt(hot)).isZero();
+	}
+
+	// Demand exceeds stock: shards run dry and rebalance, and exactly the stock on hand is sold
+	@Test
+	void escrowNeverOversells() throws Exception {
+		int stock = THREADS * SALES_PER_THREAD / 4;
+		Product hot = createProduct("BENCH-SCARCE-" + System.nanoTime(), stock, SHARDS);
+
+		Result escrow = run("escrow, scarce stock", () -> stockEscrowService.take(location, hot, 1), hot);
+
+		assertThat(escrow.sold).isEqualTo(stock);
+		assertThat(stockAt(hot)).isZero();
+	}
+
+	private Product createProduct(String sku, int stock, int shards) {
+		Product product = transactionTemplate.execute(status -> {
+			Product created = new Product();
+			created.setSku(sku);
+			created.setName(sku);
+			created.setUnitPrice(1.0);
+			created.setCurrentStock(stock);
+			created = productRepository.save(created);
+			locationService.openStock(location, created, stock);
+			return created;
+		});
+		if (shards > 0) {
+			stockEscrowService.configure(product, shards);
+		}
+		return product;
+	}
+
+	private int stockAt(Product product) {
+		Integer row = jdbcTemplate.queryForObject(
+				"SELECT quantity FROM location_stock WHERE location_id = ? AND product_id = ?",
+				Integer.class, location.getId(), product.getId());
+		Integer shards = jdbcTemplate.queryForObject(
+				"SELECT COALESCE(SUM(quantity), 0) FROM stock_shards WHERE location_id = ? AND product_id = ?",
+				Integer.class, location.getId(), product.getId());
+		return row + shards;
+	}
+
+	private Result run(String name, BooleanSupplier take, Product product) throws InterruptedException {
+		long[] latencies = new long[THREADS * SALES_PER_THREAD];
+		AtomicInteger sold = new AtomicInteger();
+		AtomicInteger retries = new AtomicInteger();
+		ExecutorService tills = Executors.newFixedThreadPool(THREADS);
+		CountDownLatch done = new CountDownLatch(THREADS);
+		long start = System.nanoTime();
+		for (int t = 0; t < THREADS; t++) {
+			int worker = t;
+			tills.execute(() -> {
+				try {
+					sell(worker, take, product, sold, retries, latencies);
+				} finally {
+					done.countDown();
+				}
+			});
+		}
+		done.await();
+		long elapsed = System.nanoTime() - start;
+		tills.shutdown();
+
+		Arrays.sort(latencies);
+		return new Result(name, latencies.length / (elapsed / 1e9), latencies[latencies.length / 2] / 1e3,
+				latencies[(int) (latencies.length * 0.99)] / 1e3, sold.get(), retries.get());
+	}
+
+	private void sell(int worker, BooleanSupplier take, Product product, AtomicInteger sold, AtomicInteger retries,
+					  long[] latencies) {
+		for (int i = 0; i < SALES_PER_THREAD; i++) {
+			long before = System.nanoTime();
+			Boolean taken = null;
+			while (taken == null) {
+				try {
+					taken = sale(take, product);
+				} catch (PessimisticLockingFailureException e) {
+					retries.incrementAndGet();
+				}
+			}
+			if (taken) {
+				sold.incrementAndGet();
+			}
+			latencies[worker * SALES_PER_THREAD + i] = System.nanoTime() - before;
+		}
+	}
+
+	private Boolean sale(BooleanSupplier take, Product product) {
+		return transactionTemplate.execute(status -> {
+			if (!take.getAsBoolean()) {
+				return false;
+			}
+			jdbcTemplate.update("INSERT INTO stock_transactions (product_id, user_id, location_id, "
+							+ "transaction_type, quantity, notes, transaction_date) VALUES (?, ?, ?, 'SALE', -1, ?, ?)",
+					product.getId(), till.getId(), location.getId(), "Point of Sale transaction",
+					Timestamp.valueOf(LocalDateTime.now()));
+			return true;
+		});
+	}
+
+	private record Result(String name, double throughput, double p50Micros, double p99Micros, int sold, int retries) {
+	}
+}
@@ -0,0 +1,80 @@
+package com.kobia.smartstock.service;
+
+import com.kobia.smartstock.entity.Location;
+import com.kobia.smartstock.entity.Product;
+import com.kobia.smartstock.repository.ProductRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+		"smartstock.inventory.aggregate-flush-ms=3600000",
+		"smartstock.outbox.sequence-ms=3600000"
+})
+class StockEscrowServiceTests {
+
+	@Autowired
+	StockEscrowService stockEscrowService;
+
+	@Autowired
+	GlobalStockAggregator globalStockAggregator;
+
+	@Autowired
+	LocationService locationService;
+
+	@Autowired
+	ProductRepository productRepository;
+
+	@Autowired
+	EntityManager entityManager;
+
+	@Autowired
+	PlatformTransactionManager transactionManager;
+
+	@Autowired
+	JdbcTemplate jdbcTemplate;
+
+	@Test
+	void flushCommittedWhileConfiguringIsNotOverwritten() {
+		String sku = "ESC-" + UUID.randomUUID().toString().substring(0, 8);
+		Product created = new Product();
+		created.setSku(sku);
+		created.setName("Product " + sku);
+		created.setUnitPrice(1.0);
+		created.setCurrentStock(10);
+		Product product = productRepository.save(created);
+		Location main = locationService.resolve(null);
+		locationService.ensureStockRow(main, product);
+		jdbcTemplate.update("UPDATE location_stock SET quantity = 10 WHERE location_id = ? AND product_id = ?",
+				main.getId(), product.getId());
+
+		// As in the escrow endpoint: the product is loaded into the request's persistence context first,
+		// then a flush commits on another thread before configure runs in the same context
+		new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+			Product loaded = entityManager.find(Product.class, product.getId());
+			assertThat(loaded.getCurrentStock()).isEqualTo(10);
+
+			CompletableFuture.runAsync(() -> {
+				globalStockAggregator.record(product.getId(), 5);
+				globalStockAggregator.flush();
+			}).join();
+
+			stockEscrowService.configure(loaded, 4);
+		});
+
+		Product reloaded = productRepository.findById(product.getId()).orElseThrow();
+		assertThat(reloaded.getCurrentStock()).isEqualTo(15);
+		assertThat(reloaded.getStockShards()).isEqualTo(4);
+		assertThat(jdbcTemplate.queryForObject("SELECT SUM(quantity) FROM stock_shards WHERE product_id = ?",
+				Integer.class, product.getId())).isEqualTo(10);
+	}
+}
@@ -0,0 +1,42 @@
+package com.kobia.smartstock.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimingWheelTests {
+
+	private static final long SECOND = 1_000L;
+
+	@Test
+	void firesEachIdOnceAtItsDeadlineAcrossLevels() {
+		TimingWheel wheel = new TimingWheel(SECOND, 0);
+		wheel.schedule(1, 5 * SECOND);
+		wheel.schedule(2, 100 * SECOND);        // level 1
+		wheel.schedule(3, 10_000 * SECOND);     // level 2
+		wheel.schedule(4, 20_000_000 * SECOND); // beyond the top level
+
+		assertThat(wheel.advance(4 * SECOND)).isEmpty();
+		assertThat(wheel.advance(5 * SECOND)).containsExactly(1L);
+		assertThat(wheel.advance(99 * SECOND)).isEmpty();
+		assertThat(wheel.advance(100 * SECOND)).containsExactly(2L);
+		assertThat(wheel.advance(9_999 * SECOND)).isEmpty();
+		assertThat(wheel.advance(10_000 * SECOND)).containsExactly(3L);
+		assertThat(wheel.size()).isEqualTo(1);
+		assertThat(wheel.advance(19_999_999 * SECOND)).isEmpty();
+		assertThat(wheel.advance(20_000_000 * SECOND)).containsExactly(4L);
+		assertThat(wheel.size()).isZero();
+	}
+
+	@Test
+	void pastDeadlinesFireOnNextAdvance() {
+		TimingWheel wheel = new TimingWheel(SECOND, 0);
+		wheel.schedule(1, 70 * SECOND);
+		wheel.schedule(2, 70 * SECOND);
+		wheel.advance(65 * SECOND); // 1 and 2 have cascaded to level 0 by now
+
+		wheel.schedule(3, 0);
+		assertThat(wheel.advance(66 * SECOND)).containsExactly(3L);
+		assertThat(wheel.advance(70 * SECOND)).containsExactlyInAnyOrder(1L, 2L);
+	}
+}
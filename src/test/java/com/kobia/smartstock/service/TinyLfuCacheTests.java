@@ -0,0 +1,60 @@
+package com.kobia.smartstock.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TinyLfuCacheTests {
+
+	private static final long NEVER = Long.MAX_VALUE;
+
+	@Test
+	void frequentlyUsedKeysSurviveAScanOfOneOffKeys() {
+		TinyLfuCache<String, String> cache = new TinyLfuCache<>(100, NEVER);
+		AtomicInteger loads = new AtomicInteger();
+		for (int round = 0; round < 5; round++) {
+			for (int i = 0; i < 50; i++) {
+				cache.get("hot-" + i, key -> { loads.incrementAndGet(); return key; });
+			}
+		}
+		for (int i = 0; i < 10_000; i++) {
+			cache.get("scan-" + i, key -> key);
+		}
+
+		loads.set(0);
+		for (int i = 0; i < 50; i++) {
+			cache.get("hot-" + i, key -> { loads.incrementAndGet(); return key; });
+		}
+		assertThat(loads.get()).isLessThanOrEqualTo(2);
+		assertThat(cache.snapshot().get("admissionRejections")).isNotEqualTo(0L);
+	}
+
+	@Test
+	void loadThatRacesAnInvalidationIsNotCached() {
+		TinyLfuCache<String, String> cache = new TinyLfuCache<>(100, NEVER);
+
+		String loaded = cache.get("SKU-1", key -> {
+			cache.invalidate(key); // a writer commits while the old row is being read
+			return "old";
+		});
+		assertThat(loaded).isEqualTo("old");
+		assertThat(cache.get("SKU-1", key -> "new")).isEqualTo("new");
+		assertThat(cache.get("SKU-1", key -> "unexpected load")).isEqualTo("new");
+
+		cache.invalidate("SKU-1");
+		assertThat(cache.get("SKU-1", key -> "newer")).isEqualTo("newer");
+	}
+
+	@Test
+	void invalidatingAnotherKeyDoesNotStopALoadBeingCached() {
+		TinyLfuCache<String, String> cache = new TinyLfuCache<>(100, NEVER);
+
+		cache.get("SKU-1", key -> {
+			cache.invalidate("SKU-2"); // unrelated write while SKU-1 is loading
+			return "loaded";
+		});
+		assertThat(cache.get("SKU-1", key -> "unexpected load")).isEqualTo("loaded");
+	}
+}